@@ -0,0 +1,58 @@
+package bench;
+
+import physics.process.PhysicsHandler;
+import physics.process.PhysicsUpdater;
+import physics.structures.Vector2;
+
+// asserts that a step allocates nothing once the pools are warm
+// (no test framework in this tree, exits with 1 on failure)
+// scenes keep colliding for the whole run: stacks resting on a floor and a
+// box of balls with a few rects, per object sleep keeps them awake.
+// pools only grow when a step needs more contacts than any step before, the
+// box pile keeps compacting for a while, so it warms up longer
+public class AllocationCheck {
+
+    static final int WARMUP = 600;
+    static final int BOX_WARMUP = 3000;
+    static final int STEPS = 300;
+
+    public static void main(String[] args) {
+        boolean ok = check("stacks", StackSettleBenchmark.stacks(), WARMUP);
+        ok &= check("mixed box", mixedBox(), BOX_WARMUP);
+        if (!ok)
+            System.exit(1);
+    }
+
+    static boolean check(String name, PhysicsHandler h, int warmup) {
+        PhysicsUpdater u = h.getUpdater();
+        for (int i = 0; i < warmup; i++)
+            u.step();
+
+        long bytes = Harness.allocatedBytes();
+        for (int i = 0; i < STEPS; i++)
+            u.step();
+        bytes = Harness.allocatedBytes() - bytes;
+
+        double perStep = (double) bytes / STEPS;
+        boolean ok = bytes == 0;
+        System.out.printf("%-10s %8.1f B/step  %s%n", name, perStep, ok ? "ok" : "FAIL");
+        return ok;
+    }
+
+    static PhysicsHandler mixedBox() {
+        PhysicsHandler h = new PhysicsHandler();
+        h.chunkDimension = 31;
+        h.addRect(new Vector2(500, 1000), 900, 100);
+        h.addRect(new Vector2(100, 600), 50, 800);
+        h.addRect(new Vector2(900, 600), 50, 800);
+        for (int i = 0; i < 400; i++) {
+            double x = 140 + (i % 36) * 20;
+            double y = 940 - (i / 36) * 20;
+            h.addBall(new Vector2(x, y), 9, 0.2, 1);
+        }
+        for (int i = 0; i < 6; i++)
+            h.addRect(new Vector2(200 + i * 100, 500), 30, 30, 5, 0.2, false);
+        h.getUpdater().step();
+        return h;
+    }
+}
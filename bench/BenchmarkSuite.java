@@ -0,0 +1,137 @@
+package bench;
+
+import java.util.ArrayList;
+
+import physics.collisions.Broadphase;
+import physics.collisions.Collision;
+import physics.collisions.StaticGeometryIndex;
+import physics.objects.PhysicsBall;
+import physics.objects.PhysicsObject;
+import physics.objects.PhysicsRect;
+import physics.process.PhysicsWorld;
+import physics.structures.Manifold;
+import physics.structures.Vector2;
+
+// every canonical scene through a full step and through each phase that can
+// be driven from outside the updater, then the Collision tests on their own.
+// throughput and allocation per op come from Harness.
+// (JMH would need a build manifest this tree does not have, same as the
+// other mains here.) args: [name filter]
+public class BenchmarkSuite {
+
+    static String filter = "";
+    static int sink = 0; // keeps the counting callbacks alive
+
+    public static void main(String[] args) {
+        if (args.length > 0)
+            filter = args[0];
+
+        scene("pile", Scenes.ballPile(200, Scenes.SEED), 300, 200);
+        scene("tiles", Scenes.tileRows(20, 30, 10, Scenes.SEED), 120, 200);
+        scene("mixed", Scenes.mixedRadii(1500, Scenes.SEED), 300, 200);
+        scene("sleeping 100k", Scenes.sleepingField(100_000, Scenes.SEED), 5, 20);
+        collisionKernels();
+        System.out.println("sink " + sink);
+    }
+
+    // settle first, then time the step and each phase on the settled state
+    static void scene(String name, PhysicsWorld w, int settle, int ops) {
+        if (!name.contains(filter))
+            return;
+
+        w.step(settle);
+        ArrayList<PhysicsObject> objects = w.getDynamicObjects();
+        System.out.println(name + ": " + objects.size() + " dynamic, " + w.getStaticObjects().size() + " static");
+
+        Harness.measure(name + " step", ops / 4, ops, w::step);
+
+        Broadphase bp = w.getBroadphase();
+        Harness.measure(name + " broadphase update", ops / 4, ops, () -> bp.update(objects));
+        Broadphase.PairCallback count = (a, b) -> sink++;
+        Harness.measure(name + " broadphase pairs", ops / 4, ops, () -> bp.findPairs(objects, count));
+
+        StaticGeometryIndex statics = w.getStaticIndex();
+        Harness.measure(name + " static queries", ops / 4, ops, () -> {
+            for (int i = 0, n = objects.size(); i < n; i++) {
+                PhysicsObject o = objects.get(i);
+                if (!o.sleeping) {
+                    o.computeBounds(o.bounds);
+                    statics.query(o, count);
+                }
+            }
+        });
+
+        // narrowphase over this step's candidate pairs, collected once
+        ArrayList<PhysicsObject> first = new ArrayList<>();
+        ArrayList<PhysicsObject> second = new ArrayList<>();
+        Broadphase.PairCallback collect = (a, b) -> {
+            first.add(a);
+            second.add(b);
+        };
+        bp.findPairs(objects, collect);
+        for (int i = 0, n = objects.size(); i < n; i++) {
+            PhysicsObject o = objects.get(i);
+            if (!o.sleeping)
+                statics.query(o, collect);
+        }
+        Harness.measure(name + " narrowphase, " + first.size() + " pairs", ops / 4, ops, () -> {
+            for (int i = 0, n = first.size(); i < n; i++) {
+                Manifold m = first.get(i).collide(second.get(i));
+                if (m != null) {
+                    sink += m.collided ? 1 : 0;
+                    Manifold.release(m);
+                }
+            }
+        });
+        System.out.println();
+    }
+
+    // each test on one hit and one miss, a batch of 1000 calls per op
+    static void collisionKernels() {
+        if (!"collision".contains(filter))
+            return;
+
+        PhysicsBall a = ball(100, 100, 10);
+        PhysicsBall hit = ball(115, 104, 10);
+        PhysicsBall miss = ball(160, 100, 10);
+        PhysicsRect r = rect(100, 130, 60, 20);
+        PhysicsRect rHit = rect(130, 140, 20, 20);
+        PhysicsRect rMiss = rect(300, 140, 20, 20);
+        PhysicsBall onRect = ball(100, 112, 10);
+
+        kernel("Collision.circleCircle hit", () -> Collision.circleCircle(a, hit));
+        kernel("Collision.circleCircle miss", () -> Collision.circleCircle(a, miss));
+        kernel("Collision.circleRect hit", () -> Collision.circleRect(onRect, r));
+        kernel("Collision.circleRect miss", () -> Collision.circleRect(miss, r));
+        kernel("Collision.rectRect hit", () -> Collision.rectRect(r, rHit));
+        kernel("Collision.rectRect miss", () -> Collision.rectRect(r, rMiss));
+    }
+
+    interface Test {
+        Manifold run();
+    }
+
+    static void kernel(String name, Test t) {
+        Harness.measure(name + " x1000", 2_000, 20_000, () -> {
+            for (int i = 0; i < 1000; i++) {
+                Manifold m = t.run();
+                if (m != null) {
+                    sink += m.collided ? 1 : 0;
+                    Manifold.release(m);
+                }
+            }
+        });
+    }
+
+    static PhysicsBall ball(double x, double y, int radius) {
+        PhysicsBall b = new PhysicsBall(radius, 0.5, 1, 0);
+        b.pos = new Vector2(x, y);
+        return b;
+    }
+
+    static PhysicsRect rect(double x, double y, int w, int h) {
+        PhysicsRect r = new PhysicsRect(w, h, 0, 0);
+        r.pos = new Vector2(x, y);
+        return r;
+    }
+}
@@ -0,0 +1,116 @@
+package bench;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import physics.collisions.Broadphase;
+import physics.collisions.ChunkGridBroadphase;
+import physics.collisions.DynamicTreeBroadphase;
+import physics.collisions.SweepAndPruneBroadphase;
+import physics.objects.PhysicsObject;
+import physics.process.PhysicsHandler;
+import physics.structures.Vector2;
+
+// broadphase update + pair search
+// uniform: a wide, flat pile of 10 px balls resting on a floor
+// mixed: 10 and 50 px balls between the 50x2000 walls of SimCanvas.setUpSim
+public class BroadphaseBenchmark {
+
+    public static void main(String[] args) {
+        int balls = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+
+        System.out.println("uniform wide pile, balls: " + balls);
+        run("ChunkGridBroadphase", () -> widePile(balls, 42), h -> new ChunkGridBroadphase(h));
+        run("SweepAndPruneBroadphase", () -> widePile(balls, 42), h -> new SweepAndPruneBroadphase(h));
+        run("DynamicTreeBroadphase", () -> widePile(balls, 42), h -> new DynamicTreeBroadphase(h));
+
+        int mixed = balls / 4;
+        System.out.println("mixed sizes, balls: " + mixed);
+        run("ChunkGridBroadphase", () -> mixedSizes(mixed, 42), h -> new ChunkGridBroadphase(h));
+        run("SweepAndPruneBroadphase", () -> mixedSizes(mixed, 42), h -> new SweepAndPruneBroadphase(h));
+        run("DynamicTreeBroadphase", () -> mixedSizes(mixed, 42), h -> new DynamicTreeBroadphase(h));
+    }
+
+    interface Scene {
+        PhysicsHandler create();
+    }
+
+    interface Factory {
+        Broadphase create(PhysicsHandler h);
+    }
+
+    static void run(String name, Scene scene, Factory factory) {
+        PhysicsHandler h = scene.create();
+        h.setBroadphase(factory.create(h));
+        h.proccessAditionsAndRemovals();
+
+        Broadphase bp = h.getBroadphase();
+        ArrayList<PhysicsObject> objects = h.getUpdateObjects();
+        long[] pairs = new long[1];
+        Broadphase.PairCallback count = (a, b) -> pairs[0]++;
+
+        Harness.measure(name, 20, 100, () -> {
+            jitter(objects);
+            bp.update(objects);
+            bp.findPairs(objects, count);
+        });
+        System.out.printf("    %.0f candidate pairs/step%n", pairs[0] / 120.0);
+
+        // pair loop on its own, should not allocate at all
+        Harness.measure("  findPairs only", 20, 100, () -> bp.findPairs(objects, count));
+    }
+
+    // balls in loose rows over a long floor, small per-step motion keeps the
+    // sort mostly coherent
+    static PhysicsHandler widePile(int balls, long seed) {
+        Random rand = new Random(seed);
+        PhysicsHandler h = new PhysicsHandler();
+        h.chunkDimension = 31;
+
+        int perRow = Math.max(1, balls / 6);
+        double width = perRow * 21.0;
+        h.addRect(new Vector2(width / 2, 50), (int) width + 100, 100);
+
+        for (int i = 0; i < balls; i++) {
+            int row = i / perRow;
+            int col = i % perRow;
+            double x = col * 21.0 + rand.nextDouble() * 2;
+            double y = -row * 19.0 - 10 + rand.nextDouble() * 2;
+            h.addBall(new Vector2(x, y), 10, 0.8, 0.05);
+        }
+        h.proccessAditionsAndRemovals();
+        return h;
+    }
+
+    // SimCanvas box (floor and two tall walls) filled with 10 px balls and
+    // every tenth one at 50 px
+    static PhysicsHandler mixedSizes(int balls, long seed) {
+        Random rand = new Random(seed);
+        PhysicsHandler h = new PhysicsHandler();
+        h.chunkDimension = 31;
+
+        h.addRect(new Vector2(500, 1000), 900, 100);
+        h.addRect(new Vector2(100, 0), 50, 2000);
+        h.addRect(new Vector2(900, 0), 50, 2000);
+
+        double height = balls * 400.0 / 700;
+        for (int i = 0; i < balls; i++) {
+            int radius = (i % 10 == 0) ? 50 : 10;
+            double x = 125 + radius + rand.nextDouble() * (750 - 2 * radius);
+            double y = 950 - radius - rand.nextDouble() * height;
+            h.addBall(new Vector2(x, y), radius, 0.8, radius == 50 ? 5 : 0.05);
+        }
+        h.proccessAditionsAndRemovals();
+        return h;
+    }
+
+    static final Random JITTER = new Random(7);
+
+    static void jitter(ArrayList<PhysicsObject> objects) {
+        for (int i = 0; i < objects.size(); i++) {
+            PhysicsObject o = objects.get(i);
+            if (!o.stationary)
+                o.pos.x += (JITTER.nextDouble() - 0.5) * 0.5;
+        }
+    }
+}
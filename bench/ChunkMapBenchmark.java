@@ -0,0 +1,59 @@
+package bench;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import physics.structures.Chunk;
+import physics.structures.ChunkMap;
+
+// chunk lookups as done by PhysicsUpdater: every ball looks up the cells of its
+// bounding box once per step, boxed HashMap vs ChunkMap
+public class ChunkMapBenchmark {
+
+    public static void main(String[] args) {
+        int balls = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int chunkDimension = 31;
+
+        Random rand = new Random(42);
+        int[] minCx = new int[balls], maxCx = new int[balls], minCy = new int[balls], maxCy = new int[balls];
+        for (int i = 0; i < balls; i++) {
+            double x = rand.nextDouble() * 4000, y = rand.nextDouble() * 1000;
+            minCx[i] = (int) Math.floor((x - 10) / chunkDimension);
+            maxCx[i] = (int) Math.floor((x + 10) / chunkDimension);
+            minCy[i] = (int) Math.floor((y - 10) / chunkDimension);
+            maxCy[i] = (int) Math.floor((y + 10) / chunkDimension);
+        }
+
+        HashMap<Long, Chunk> hashMap = new HashMap<>();
+        ChunkMap chunkMap = new ChunkMap();
+        int[] sink = new int[1];
+
+        System.out.println("balls: " + balls);
+
+        Harness.measure("HashMap<Long, Chunk>.computeIfAbsent", 50, 200, () -> {
+            for (int i = 0; i < balls; i++)
+                for (int cx = minCx[i]; cx <= maxCx[i]; cx++)
+                    for (int cy = minCy[i]; cy <= maxCy[i]; cy++)
+                        sink[0] += hashMap.computeIfAbsent(ChunkMap.keyFor(cx, cy), k -> new Chunk()).size();
+        });
+
+        Harness.measure("ChunkMap.getOrCreate", 50, 200, () -> {
+            for (int i = 0; i < balls; i++)
+                for (int cx = minCx[i]; cx <= maxCx[i]; cx++)
+                    for (int cy = minCy[i]; cy <= maxCy[i]; cy++)
+                        sink[0] += chunkMap.getOrCreate(cx, cy).size();
+        });
+
+        Harness.measure("HashMap<Long, Chunk> iterate values", 50, 2000, () -> {
+            for (Chunk c : hashMap.values())
+                sink[0] += c.size();
+        });
+
+        Harness.measure("ChunkMap iterate occupied", 50, 2000, () -> {
+            for (int i = 0; i < chunkMap.size(); i++)
+                sink[0] += chunkMap.getAt(i).size();
+        });
+
+        System.out.println("chunks: " + chunkMap.size() + " (" + sink[0] + ")");
+    }
+}
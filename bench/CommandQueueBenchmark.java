@@ -0,0 +1,77 @@
+package bench;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import physics.objects.PhysicsBall;
+import physics.objects.PhysicsObject;
+import physics.process.PhysicsWorld;
+import physics.structures.Vector2;
+
+// gameplay threads spawning and deleting balls in a burst while the world
+// drains what they queue: 8 producers queue their share of the balls at once,
+// then the world takes them in, then the same for removing them all again.
+// times are wall time for the producers and for the drain. args: [balls]
+public class CommandQueueBenchmark {
+
+    static final int PRODUCERS = 8;
+    static final int RUNS = 5;
+
+    public static void main(String[] args) throws InterruptedException {
+        int balls = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+
+        for (int run = 0; run < RUNS; run++) {
+            PhysicsWorld w = new PhysicsWorld();
+            ArrayList<ArrayList<PhysicsObject>> shares = new ArrayList<>();
+            for (int t = 0; t < PRODUCERS; t++)
+                shares.add(new ArrayList<>());
+            for (int i = 0; i < balls; i++) {
+                PhysicsBall b = new PhysicsBall(10, 0.8, 0.05, 0);
+                b.pos = new Vector2((i % 100) * 25, (i / 100) * 25);
+                shares.get(i % PRODUCERS).add(b);
+            }
+
+            long add = burst(shares, w, true);
+            long t = System.nanoTime();
+            w.proccessAditionsAndRemovals();
+            long drainAdd = System.nanoTime() - t;
+
+            long remove = burst(shares, w, false);
+            t = System.nanoTime();
+            w.proccessAditionsAndRemovals();
+            long drainRemove = System.nanoTime() - t;
+
+            if (w.getUpdateObjects().size() != 0)
+                throw new IllegalStateException(w.getUpdateObjects().size() + " objects left");
+            System.out.printf("%d balls, %d producers  add %7.2f ms  drain %7.2f ms   remove %7.2f ms  drain %7.2f ms%n",
+                    balls, PRODUCERS, add * 1e-6, drainAdd * 1e-6, remove * 1e-6, drainRemove * 1e-6);
+        }
+    }
+
+    // every producer queues its whole share, all released at once
+    static long burst(ArrayList<ArrayList<PhysicsObject>> shares, PhysicsWorld w, boolean add)
+            throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(shares.size());
+        for (ArrayList<PhysicsObject> share : shares) {
+            new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0, n = share.size(); i < n; i++) {
+                    if (add)
+                        w.addObject(share.get(i));
+                    else
+                        w.removeObject(share.get(i));
+                }
+                done.countDown();
+            }).start();
+        }
+        long t = System.nanoTime();
+        start.countDown();
+        done.await();
+        return System.nanoTime() - t;
+    }
+}
@@ -0,0 +1,56 @@
+package bench;
+
+import java.lang.management.ManagementFactory;
+
+// tiny measurement loop used by the benchmarks in this package
+// (no build manifest in this tree, so there is no JMH; run the mains directly)
+public class Harness {
+
+    private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory
+            .getThreadMXBean();
+
+    public interface Op {
+        void run();
+    }
+
+    public static class Result {
+        public final String name;
+        public final double nanosPerOp;
+        public final double bytesPerOp;
+
+        Result(String name, double nanosPerOp, double bytesPerOp) {
+            this.name = name;
+            this.nanosPerOp = nanosPerOp;
+            this.bytesPerOp = bytesPerOp;
+        }
+
+        public double opsPerSecond() {
+            return 1e9 / nanosPerOp;
+        }
+    }
+
+    public static long allocatedBytes() {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    public static Result measure(String name, int warmupOps, int ops, Op op) {
+        for (int i = 0; i < warmupOps; i++)
+            op.run();
+
+        long bytes = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < ops; i++)
+            op.run();
+        long elapsed = System.nanoTime() - start;
+        bytes = allocatedBytes() - bytes;
+
+        Result r = new Result(name, (double) elapsed / ops, (double) bytes / ops);
+        print(r);
+        return r;
+    }
+
+    public static void print(Result r) {
+        System.out.printf("%-40s %12.1f ns/op %12.1f ops/s %10.1f B/op%n", r.name, r.nanosPerOp, r.opsPerSecond(),
+                r.bytesPerOp);
+    }
+}
@@ -0,0 +1,37 @@
+package bench;
+
+import physics.process.PhysicsWorld;
+import physics.structures.Vector2;
+
+// game time simulated per second of wall time with PhysicsWorld alone, no
+// window, no renderer and no updater thread. run with -Djava.awt.headless=true
+public class HeadlessBenchmark {
+
+    static final double GAME_SECONDS = 600; // ten minutes of game time per run
+
+    public static void main(String[] args) {
+        for (double hz : new double[] { 60, 30 }) {
+            PhysicsWorld w = pile();
+            w.getUpdater().setTickRate(hz);
+
+            long start = System.nanoTime();
+            int steps = w.step(GAME_SECONDS);
+            double wall = (System.nanoTime() - start) * 1e-9;
+
+            System.out.printf("%4.0f Hz  %6d steps  %7.1f game s in %6.2f s  %7.1fx real time%n", hz, steps,
+                    w.getTime(), wall, w.getTime() / wall);
+        }
+    }
+
+    // balls dropped into a walled box, settles and then mostly sleeps
+    static PhysicsWorld pile() {
+        PhysicsWorld w = new PhysicsWorld();
+        w.chunkDimension = 31;
+        w.addRect(new Vector2(500, 1000), 900, 100);
+        w.addRect(new Vector2(100, 500), 50, 1000);
+        w.addRect(new Vector2(900, 500), 50, 1000);
+        for (int i = 0; i < 1000; i++)
+            w.addBall(new Vector2(150 + (i % 35) * 20, 900 - (i / 35) * 22), 10, 0.8, 0.05);
+        return w;
+    }
+}
@@ -0,0 +1,49 @@
+package bench;
+
+import physics.objects.PhysicsObject;
+import physics.process.PhysicsHandler;
+import physics.process.PhysicsUpdater;
+
+// settling stacks with per object sleep against island sleep: when the pile
+// falls asleep and what a step costs once it has settled
+public class IslandBenchmark {
+
+    static final int STEPS = 900;
+    static final int TAIL = 200; // steps measured at the end
+
+    public static void main(String[] args) {
+        System.out.println(StackSettleBenchmark.COLUMNS + " stacks of " + StackSettleBenchmark.HEIGHT + " balls");
+        run("per object sleep", false);
+        run("islands", true);
+    }
+
+    static void run(String name, boolean islands) {
+        PhysicsHandler h = StackSettleBenchmark.stacks();
+        PhysicsUpdater u = h.getUpdater();
+        u.ISLANDS = islands;
+
+        int allAsleepAt = -1;
+        long tail = 0;
+        for (int step = 0; step < STEPS; step++) {
+            long start = System.nanoTime();
+            u.step();
+            if (step >= STEPS - TAIL)
+                tail += System.nanoTime() - start;
+            if (allAsleepAt < 0 && sleeping(h) == h.getDynamicObjects().size())
+                allAsleepAt = step;
+        }
+        u.stop();
+
+        System.out.printf("%-18s all asleep at %5s  sleeping %3d  awake islands %3d  settled step %8.0f ns  top drift %6.2f px%n",
+                name, allAsleepAt < 0 ? "never" : allAsleepAt, sleeping(h), u.getIslandCount(),
+                (double) tail / TAIL, StackSettleBenchmark.topDrift(h));
+    }
+
+    static int sleeping(PhysicsHandler h) {
+        int n = 0;
+        for (PhysicsObject o : h.getDynamicObjects())
+            if (o.sleeping)
+                n++;
+        return n;
+    }
+}
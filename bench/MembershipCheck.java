@@ -0,0 +1,98 @@
+package bench;
+
+import java.util.List;
+
+import physics.objects.PhysicsBall;
+import physics.objects.PhysicsObject;
+import physics.process.PhysicsWorld;
+import physics.structures.Vector2;
+
+// adds and removes queued between two steps, in the orders gameplay code
+// produces them, must leave each object where the last call put it, in every
+// list at most once (no test framework in this tree, exits with 1 on failure)
+public class MembershipCheck {
+
+    static boolean ok = true;
+
+    public static void main(String[] args) {
+        PhysicsWorld w = new PhysicsWorld();
+        PhysicsBall b = ball();
+        w.addObject(b);
+        w.addObject(b);
+        w.step();
+        check("add, add", w, b, true);
+
+        long id = b.id;
+        w.addObject(b);
+        w.step();
+        check("add while in the world", w, b, true);
+        check("  keeps its id", b.id == id);
+
+        w.removeObject(b);
+        w.addObject(b);
+        w.step();
+        check("remove, add (respawn)", w, b, true);
+
+        w.removeObject(b);
+        w.removeObject(b);
+        w.step();
+        check("remove, remove", w, b, false);
+
+        w.addObject(b);
+        w.step();
+        check("add after removal", w, b, true);
+
+        w.removeObject(b);
+        w.addObject(b);
+        w.removeObject(b);
+        w.addObject(b);
+        w.step();
+        check("remove, add, remove, add", w, b, true);
+
+        PhysicsBall c = ball();
+        w.addObject(c);
+        w.removeObject(c);
+        w.addObject(c);
+        w.step();
+        check("add, remove, add", w, c, true);
+
+        PhysicsBall d = ball();
+        w.addObject(d);
+        w.removeObject(d);
+        w.step();
+        check("add, remove", w, d, false);
+
+        check("  ids stay unique", b.id != c.id);
+
+        if (!ok)
+            System.exit(1);
+    }
+
+    static PhysicsBall ball() {
+        PhysicsBall b = new PhysicsBall(10, 0.5, 1, 0);
+        b.pos = new Vector2(0, 0);
+        return b;
+    }
+
+    static void check(String name, PhysicsWorld w, PhysicsObject o, boolean in) {
+        int copies = count(w.getUpdateObjects(), o);
+        boolean pass = copies == (in ? 1 : 0) && count(w.getDynamicObjects(), o) == copies
+                && o.hasWorldFlag(PhysicsObject.IN_WORLD) == in
+                && !o.hasWorldFlag(PhysicsObject.QUEUED_ADD | PhysicsObject.QUEUED_REMOVE);
+        System.out.printf("%-28s %s, %d in the world  %s%n", name, in ? "in" : "out", copies, pass ? "ok" : "FAIL");
+        ok &= pass;
+    }
+
+    static void check(String name, boolean pass) {
+        System.out.printf("%-28s %s%n", name, pass ? "ok" : "FAIL");
+        ok &= pass;
+    }
+
+    static int count(List<PhysicsObject> objects, PhysicsObject o) {
+        int n = 0;
+        for (int i = 0; i < objects.size(); i++)
+            if (objects.get(i) == o)
+                n++;
+        return n;
+    }
+}
@@ -0,0 +1,91 @@
+package bench;
+
+import java.util.ArrayList;
+
+import physics.collisions.Broadphase;
+import physics.collisions.ParallelNarrowphase;
+import physics.objects.PhysicsObject;
+import physics.process.PhysicsHandler;
+import physics.process.PhysicsUpdater;
+import physics.structures.Manifold;
+
+// narrowphase throughput on the wide pile candidate pairs, serial collide loop
+// against ParallelNarrowphase from 1 to N threads, then a full simulation run
+// both ways to check the results are bit for bit the same
+// args: [maxThreads] [balls]
+public class NarrowphaseBenchmark {
+
+    public static void main(String[] args) {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int balls = args.length > 1 ? Integer.parseInt(args[1]) : 50_000;
+
+        PhysicsHandler h = BroadphaseBenchmark.widePile(balls, 42);
+        ArrayList<PhysicsObject> objects = h.getDynamicObjects();
+        Broadphase bp = h.getBroadphase();
+        bp.update(objects);
+
+        ArrayList<PhysicsObject[]> pairs = new ArrayList<>();
+        bp.findPairs(objects, (a, b) -> pairs.add(new PhysicsObject[] { a, b }));
+        System.out.println("cores: " + Runtime.getRuntime().availableProcessors() + ", balls: " + balls
+                + ", candidate pairs: " + pairs.size());
+
+        ArrayList<Manifold> out = new ArrayList<>();
+        Harness.Result base = Harness.measure("serial collide", 10, 50, () -> {
+            for (int i = 0, n = pairs.size(); i < n; i++) {
+                PhysicsObject[] p = pairs.get(i);
+                Manifold m = p[0].collide(p[1]);
+                if (m != null) {
+                    if (m.collided)
+                        out.add(m);
+                    else
+                        Manifold.release(m);
+                }
+            }
+            release(out);
+        });
+
+        for (int t = 1; t <= maxThreads; t = (t < maxThreads && t << 1 > maxThreads) ? maxThreads : t << 1) {
+            ParallelNarrowphase np = new ParallelNarrowphase(t);
+            Harness.Result r = Harness.measure("parallel collide, threads " + t, 10, 50, () -> {
+                for (int i = 0, n = pairs.size(); i < n; i++) {
+                    PhysicsObject[] p = pairs.get(i);
+                    np.pair(p[0], p[1]);
+                }
+                np.collide(out);
+                release(out);
+            });
+            System.out.printf("    speedup %.2fx%n", base.nanosPerOp / r.nanosPerOp);
+            np.shutdown();
+        }
+
+        int threads = Math.max(2, maxThreads);
+        boolean same = simulate(false, threads) == simulate(true, threads);
+        System.out.println("300 steps, serial vs " + threads + " threads: " + (same ? "identical" : "DIFFERENT"));
+    }
+
+    static void release(ArrayList<Manifold> out) {
+        for (int i = 0; i < out.size(); i++)
+            Manifold.release(out.get(i));
+        out.clear();
+    }
+
+    // hash of every position and velocity after the run
+    static long simulate(boolean parallel, int threads) {
+        PhysicsHandler h = BroadphaseBenchmark.widePile(5_000, 7);
+        PhysicsUpdater u = h.getUpdater();
+        u.PARALLEL_NARROWPHASE = parallel;
+        u.NARROWPHASE_THREADS = threads;
+        for (int i = 0; i < 300; i++)
+            u.step();
+        u.stop();
+
+        long hash = 17;
+        for (PhysicsObject o : h.getDynamicObjects()) {
+            hash = hash * 31 + Double.doubleToLongBits(o.pos.x);
+            hash = hash * 31 + Double.doubleToLongBits(o.pos.y);
+            hash = hash * 31 + Double.doubleToLongBits(o.vel.x);
+            hash = hash * 31 + Double.doubleToLongBits(o.vel.y);
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,70 @@
+package bench;
+
+import java.util.ArrayList;
+
+import physics.collisions.Broadphase;
+import physics.collisions.ChunkGridBroadphase;
+import physics.collisions.ParallelChunkGridBroadphase;
+import physics.objects.PhysicsObject;
+import physics.process.PhysicsHandler;
+
+// pair search scaling of ParallelChunkGridBroadphase from 1 to N threads
+// args: [maxThreads] [ball counts...], defaults to every core and 10k 50k 100k
+public class ParallelBroadphaseBenchmark {
+
+    public static void main(String[] args) {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int[] counts = { 10_000, 50_000, 100_000 };
+        if (args.length > 1) {
+            counts = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++)
+                counts[i - 1] = Integer.parseInt(args[i]);
+        }
+
+        System.out.println("cores: " + Runtime.getRuntime().availableProcessors());
+        for (int balls : counts) {
+            System.out.println("wide pile, balls: " + balls);
+            PhysicsHandler h = BroadphaseBenchmark.widePile(balls, 42);
+            ArrayList<PhysicsObject> objects = h.getUpdateObjects();
+
+            ChunkGridBroadphase serial = new ChunkGridBroadphase(h);
+            for (PhysicsObject o : objects)
+                serial.add(o);
+            serial.update(objects);
+
+            long expected = checksum(serial, objects);
+            Harness.Result base = measure("serial grid", serial, objects);
+
+            for (int t = 1; t <= maxThreads; t <<= 1) {
+                run(h, objects, t, expected, base);
+                if (t < maxThreads && t << 1 > maxThreads)
+                    run(h, objects, maxThreads, expected, base);
+            }
+        }
+    }
+
+    static void run(PhysicsHandler h, ArrayList<PhysicsObject> objects, int threads, long expected,
+            Harness.Result base) {
+        ParallelChunkGridBroadphase bp = new ParallelChunkGridBroadphase(h, threads);
+        Harness.Result r = measure("parallel grid, threads " + threads, bp, objects);
+        long sum = checksum(bp, objects);
+        System.out.printf("    speedup %.2fx, pair set %s%n", base.nanosPerOp / r.nanosPerOp,
+                sum == expected ? "matches serial" : "DIFFERS");
+        bp.shutdown();
+    }
+
+    static Harness.Result measure(String name, Broadphase bp, ArrayList<PhysicsObject> objects) {
+        long[] pairs = new long[1];
+        return Harness.measure(name, 20, 100, () -> bp.findPairs(objects, (a, b) -> pairs[0]++));
+    }
+
+    // order independent hash of the emitted pairs, orientation included
+    static long checksum(Broadphase bp, ArrayList<PhysicsObject> objects) {
+        long[] sum = new long[1];
+        bp.findPairs(objects, (a, b) -> {
+            long k = a.id * 0x9E3779B97F4A7C15L + b.id;
+            sum[0] += k ^ (k >>> 29);
+        });
+        return sum[0];
+    }
+}
@@ -0,0 +1,96 @@
+package bench;
+
+import java.util.Random;
+
+import physics.objects.PhysicsBall;
+import physics.objects.PhysicsObject;
+import physics.process.PhysicsWorld;
+import physics.structures.Vector2;
+
+// canonical seeded scenes for the benchmark suite, the same seed always
+// builds the same world. none of them is stepped here
+public class Scenes {
+
+    public static final long SEED = 20_24;
+
+    // SimCanvas SPACE spam: its box, five 10 px balls per press dropped at the
+    // same spot, presses scattered over the upper half
+    public static PhysicsWorld ballPile(int presses, long seed) {
+        Random r = new Random(seed);
+        PhysicsWorld w = canvasBox();
+        for (int p = 0; p < presses; p++) {
+            double x = 200 + r.nextDouble() * 600;
+            double y = 100 + r.nextDouble() * 400;
+            for (int i = 0; i < 5; i++)
+                w.addBall(new Vector2(x, y), 10, 0.8, 0.05);
+        }
+        return w;
+    }
+
+    // rows of static 31 px tiles, like right click placement, with balls
+    // rolling along each row at seeded speeds
+    public static PhysicsWorld tileRows(int rows, int tilesPerRow, int ballsPerRow, long seed) {
+        Random r = new Random(seed);
+        PhysicsWorld w = new PhysicsWorld();
+        w.chunkDimension = 31;
+        for (int row = 0; row < rows; row++) {
+            int y = row * 124 + 15;
+            for (int t = 0; t < tilesPerRow; t++)
+                w.addRect(new Vector2(t * 31 + 15, y), 31, 31);
+            for (int b = 0; b < ballsPerRow; b++) {
+                PhysicsBall ball = new PhysicsBall(10, 0.5, 0.05, 0);
+                ball.pos = new Vector2(60 + r.nextDouble() * (tilesPerRow * 31 - 120), y - 26);
+                ball.vel.set((r.nextDouble() - 0.5) * 400, 0);
+                w.addObject(ball);
+            }
+        }
+        return w;
+    }
+
+    // 10 and 50 px balls mixed 4 to 1 in the canvas box, seeded positions
+    public static PhysicsWorld mixedRadii(int balls, long seed) {
+        Random r = new Random(seed);
+        PhysicsWorld w = canvasBox();
+        for (int i = 0; i < balls; i++) {
+            boolean big = r.nextInt(5) == 0;
+            Vector2 pos = new Vector2(180 + r.nextDouble() * 640, -2000 + r.nextDouble() * 2400);
+            if (big)
+                w.addBall(pos, 50, 0.5, 5);
+            else
+                w.addBall(pos, 10, 0.8, 0.05);
+        }
+        return w;
+    }
+
+    // balls already asleep on a spaced grid, nothing touches, so a step is
+    // only the per object cost of sleeping bodies
+    public static PhysicsWorld sleepingField(int balls, long seed) {
+        Random r = new Random(seed);
+        PhysicsWorld w = new PhysicsWorld();
+        w.chunkDimension = 31;
+        int side = (int) Math.ceil(Math.sqrt(balls));
+        for (int i = 0; i < balls; i++) {
+            PhysicsBall b = new PhysicsBall(10, 0.5, 0.05, 0);
+            b.pos = new Vector2((i % side) * 30 + r.nextDouble() * 4, (i / side) * 30 + r.nextDouble() * 4);
+            sleep(b);
+            w.addObject(b);
+        }
+        return w;
+    }
+
+    static void sleep(PhysicsObject o) {
+        o.sleeping = true;
+        o.supported = true;
+        o.sleepFrames = PhysicsObject.MAX_SLEEP_FRAMES;
+    }
+
+    // SimCanvas setUpSim: floor and two walls
+    static PhysicsWorld canvasBox() {
+        PhysicsWorld w = new PhysicsWorld();
+        w.chunkDimension = 31;
+        w.addRect(new Vector2(500, 1000), 900, 100);
+        w.addRect(new Vector2(100, 0), 50, 2000);
+        w.addRect(new Vector2(900, 0), 50, 2000);
+        return w;
+    }
+}
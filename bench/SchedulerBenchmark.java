@@ -0,0 +1,101 @@
+package bench;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+
+import physics.process.PhysicsMetrics;
+import physics.process.PhysicsUpdater;
+import physics.process.PhysicsWorld;
+import physics.process.StepStats;
+
+// the updater thread against the wall clock: how far step starts drift from
+// the tick grid and how much CPU the thread burns, then the unthrottled mode.
+// step starts are taken from the metrics hook, completion minus step time.
+// args: [seconds per run]
+public class SchedulerBenchmark {
+
+    static final int MAX_SAMPLES = 100_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 5;
+
+        for (double hz : new double[] { 60, 120 }) {
+            // an empty world leaves only the scheduler's own cost
+            report("empty", hz, run(new PhysicsWorld(), hz, false, seconds));
+            report("2000 asleep", hz, run(Scenes.sleepingField(2000, Scenes.SEED), hz, false, seconds));
+        }
+
+        Probe p = run(Scenes.ballPile(100, Scenes.SEED), 60, true, seconds);
+        System.out.printf("unthrottled pile  %6d steps  %8.1f steps/s  %6.1fx real time at 60 Hz  cpu %5.1f%%%n",
+                p.steps, p.steps / p.wallSeconds, p.steps / p.wallSeconds / 60, p.cpuPercent());
+    }
+
+    static void report(String scene, double hz, Probe p) {
+        int n = p.samples; // the updater may still finish a step
+        long period = (long) (1_000_000_000 / hz);
+        long[] error = new long[n - 1];
+        for (int i = 1; i < n; i++)
+            error[i - 1] = Math.abs(p.starts[i] - p.starts[i - 1] - period);
+        Arrays.sort(error);
+        System.out.printf("%-12s %4.0f Hz  %5d steps  interval error p50 %6.1f us  p99 %7.1f us  max %7.1f us"
+                + "  cpu %5.1f%%  %6.1f us cpu/step%n", scene, hz, n, error[error.length / 2] * 1e-3,
+                error[(int) (error.length * 0.99)] * 1e-3, error[error.length - 1] * 1e-3, p.cpuPercent(),
+                p.cpuPerStep() * 1e-3);
+    }
+
+    static Probe run(PhysicsWorld w, double hz, boolean unthrottled, double seconds) throws InterruptedException {
+        PhysicsUpdater u = w.getUpdater();
+        u.setTickRate(hz);
+        u.UNTHROTTLED = unthrottled;
+        Probe p = new Probe();
+        w.beginUpdaterThread();
+        Thread.sleep(1000); // warm up before measuring
+        p.begin();
+        u.metrics = p;
+        Thread.sleep((long) (seconds * 1000));
+        u.metrics = null;
+        p.end();
+        w.stopUpdaterThread();
+        return p;
+    }
+
+    static class Probe implements PhysicsMetrics {
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        final long[] starts = new long[MAX_SAMPLES];
+        volatile int samples = 0;
+        volatile long steps = 0;
+        volatile long thread = -1;
+        long cpuAtStart = -1, cpu, wallStart;
+        double wallSeconds;
+
+        void begin() {
+            wallStart = System.nanoTime();
+        }
+
+        void end() {
+            wallSeconds = (System.nanoTime() - wallStart) * 1e-9;
+            cpu = thread < 0 ? 0 : threads.getThreadCpuTime(thread) - cpuAtStart;
+        }
+
+        @Override
+        public void stepCompleted(StepStats s) {
+            long now = System.nanoTime();
+            if (thread < 0) {
+                cpuAtStart = threads.getCurrentThreadCpuTime();
+                thread = Thread.currentThread().getId();
+            }
+            if (samples < MAX_SAMPLES)
+                starts[samples++] = now - s.stepNanos;
+            steps++;
+        }
+
+        double cpuPercent() {
+            return 100.0 * cpu * 1e-9 / wallSeconds;
+        }
+
+        double cpuPerStep() {
+            return steps == 0 ? 0 : (double) cpu / steps;
+        }
+    }
+}
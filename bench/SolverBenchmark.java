@@ -0,0 +1,66 @@
+package bench;
+
+import physics.process.PhysicsHandler;
+import physics.process.PhysicsUpdater;
+
+// graph colored velocity solver against the serial Gauss-Seidel loop
+// convergence: the settling stacks of StackSettleBenchmark
+// scaling: full steps of a large resting pile, 1 to N solver threads
+// args: [maxThreads] [balls]
+public class SolverBenchmark {
+
+    public static void main(String[] args) {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int balls = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+
+        System.out.println("convergence, " + StackSettleBenchmark.COLUMNS + " stacks of "
+                + StackSettleBenchmark.HEIGHT + " balls");
+        for (int iters : new int[] { 6, 20 }) {
+            settle("serial, " + iters + " iterations", false, iters);
+            settle("colored, " + iters + " iterations", true, iters);
+        }
+
+        System.out.println("scaling, wide pile of " + balls + " balls, cores: "
+                + Runtime.getRuntime().availableProcessors());
+        Harness.Result base = pile("serial", false, 1, balls);
+        for (int t = 1; t <= maxThreads; t = (t < maxThreads && t << 1 > maxThreads) ? maxThreads : t << 1) {
+            Harness.Result r = pile("colored, threads " + t, true, t, balls);
+            System.out.printf("    speedup %.2fx%n", base.nanosPerOp / r.nanosPerOp);
+        }
+    }
+
+    static void settle(String name, boolean colored, int iterations) {
+        PhysicsHandler h = StackSettleBenchmark.stacks();
+        PhysicsUpdater u = h.getUpdater();
+        u.PARALLEL_SOLVER = colored;
+        u.SOLVER_ITERS = iterations;
+
+        int settledAt = -1;
+        int calm = 0;
+        for (int step = 0; step < StackSettleBenchmark.STEPS; step++) {
+            u.step();
+            if (StackSettleBenchmark.maxSpeed(h) < 1.0) {
+                if (++calm == 60 && settledAt < 0)
+                    settledAt = step - 59;
+            } else {
+                calm = 0;
+                settledAt = -1;
+            }
+        }
+        u.stop();
+        System.out.printf("%-28s settled at %5s  top drift %6.2f px  toppled %d%n", name,
+                settledAt < 0 ? "never" : settledAt, StackSettleBenchmark.topDrift(h),
+                StackSettleBenchmark.toppled(h));
+    }
+
+    static Harness.Result pile(String name, boolean colored, int threads, int balls) {
+        PhysicsHandler h = BroadphaseBenchmark.widePile(balls, 42);
+        PhysicsUpdater u = h.getUpdater();
+        u.PARALLEL_SOLVER = colored;
+        u.SOLVER_THREADS = threads;
+        u.SOLVER_ITERS = 20;
+        Harness.Result r = Harness.measure(name, 30, 60, u::step);
+        u.stop();
+        return r;
+    }
+}
@@ -0,0 +1,99 @@
+package bench;
+
+import physics.objects.PhysicsObject;
+import physics.process.PhysicsHandler;
+import physics.process.PhysicsUpdater;
+import physics.structures.Vector2;
+
+// columns of balls dropped onto a floor, how long until they settle and how
+// much a step costs, cold solver against warm started ones
+public class StackSettleBenchmark {
+
+    static final int COLUMNS = 20;
+    static final int HEIGHT = 15;
+    static final int STEPS = 600;
+
+    public static void main(String[] args) {
+        System.out.println(COLUMNS + " stacks of " + HEIGHT + " balls");
+        run("cold, 20 iterations", false, 20);
+        run("cold, 6 iterations", false, 6);
+        run("warm, 20 iterations", true, 20);
+        run("warm, 6 iterations", true, 6);
+        run("warm, 4 iterations", true, 4);
+    }
+
+    static void run(String name, boolean warm, int iterations) {
+        PhysicsHandler h = stacks();
+        PhysicsUpdater u = h.getUpdater();
+        u.WARM_STARTING = warm;
+        u.SOLVER_ITERS = iterations;
+
+        // settled once every ball stayed below 1 px/s for 60 steps
+        int settledAt = -1;
+        int calm = 0;
+        long elapsed = 0;
+        for (int step = 0; step < STEPS; step++) {
+            long start = System.nanoTime();
+            u.step();
+            elapsed += System.nanoTime() - start;
+            if (maxSpeed(h) < 1.0) {
+                if (++calm == 60 && settledAt < 0)
+                    settledAt = step - 59;
+            } else {
+                calm = 0;
+                settledAt = -1;
+            }
+        }
+        double nanosPerStep = (double) elapsed / STEPS;
+
+        System.out.printf("%-24s settled at %5s  %9.0f ns/step  top drift %6.2f px  toppled %d%n", name,
+                settledAt < 0 ? "never" : settledAt, nanosPerStep, topDrift(h), toppled(h));
+    }
+
+    public static PhysicsHandler stacks() {
+        PhysicsHandler h = new PhysicsHandler();
+        h.chunkDimension = 31;
+        h.addRect(new Vector2(COLUMNS * 30, 50), COLUMNS * 60 + 200, 100);
+        for (int c = 0; c < COLUMNS; c++) {
+            for (int i = 0; i < HEIGHT; i++) {
+                h.addBall(new Vector2(c * 60 + 30, -10 - i * 21), 10, 0.8, 0.05);
+            }
+        }
+        h.getUpdater().step();
+        return h;
+    }
+
+    static double maxSpeed(PhysicsHandler h) {
+        double max = 0;
+        for (PhysicsObject o : h.getDynamicObjects())
+            max = Math.max(max, o.vel.length());
+        return max;
+    }
+
+    // how far the top of each column sank below a perfect 20 px pitch
+    static double topDrift(PhysicsHandler h) {
+        double ideal = -10 - (HEIGHT - 1) * 20;
+        double[] top = new double[COLUMNS];
+        java.util.Arrays.fill(top, Double.POSITIVE_INFINITY);
+        for (PhysicsObject o : h.getDynamicObjects()) {
+            int c = (int) Math.round((o.pos.x - 30) / 60.0);
+            if (c >= 0 && c < COLUMNS)
+                top[c] = Math.min(top[c], o.pos.y);
+        }
+        double sum = 0;
+        for (double y : top)
+            sum += y - ideal;
+        return sum / COLUMNS;
+    }
+
+    // balls that slid off their column
+    static int toppled(PhysicsHandler h) {
+        int n = 0;
+        for (PhysicsObject o : h.getDynamicObjects()) {
+            double column = Math.round((o.pos.x - 30) / 60.0) * 60 + 30;
+            if (Math.abs(o.pos.x - column) > 5)
+                n++;
+        }
+        return n;
+    }
+}
@@ -0,0 +1,66 @@
+package bench;
+
+import physics.process.PhysicsMetrics;
+import physics.process.PhysicsWorld;
+import physics.process.StepStats;
+
+// where a step's time goes in each canonical scene, summed through the
+// updater's metrics hook after the scene settles, and how many solver passes
+// it took. args: [name filter] [adaptive]
+public class StepPhases {
+
+    static String filter = "";
+    static boolean adaptive = false;
+
+    public static void main(String[] args) {
+        if (args.length > 0)
+            filter = args[0];
+        adaptive = args.length > 1 && args[1].equals("adaptive");
+
+        run("pile", Scenes.ballPile(200, Scenes.SEED), 300, 600);
+        run("tiles", Scenes.tileRows(20, 30, 10, Scenes.SEED), 120, 600);
+        run("mixed", Scenes.mixedRadii(1500, Scenes.SEED), 300, 600);
+        run("sleeping 100k", Scenes.sleepingField(100_000, Scenes.SEED), 5, 60);
+    }
+
+    static void run(String name, PhysicsWorld w, int settle, int steps) {
+        if (!name.contains(filter))
+            return;
+
+        w.getUpdater().ADAPTIVE_ITERATIONS = adaptive;
+        w.step(settle);
+        Totals totals = new Totals();
+        w.getUpdater().metrics = totals;
+        w.step(steps);
+        w.getUpdater().metrics = null;
+
+        StepStats last = totals.last;
+        System.out.printf("%s: %d bodies, %d awake, %d statics, %d pairs, %d manifolds, %d chunks%n", name,
+                last.bodies, last.awakeBodies, last.statics, last.candidatePairs, last.manifolds, last.chunks);
+        double step = totals.step / (double) steps;
+        for (PhysicsMetrics.Phase p : PhysicsMetrics.Phase.values()) {
+            double ns = totals.phases[p.ordinal()] / (double) steps;
+            System.out.printf("  %-22s %10.1f us %5.1f%%%n", p, ns * 1e-3, 100 * ns / step);
+        }
+        System.out.printf("  %-22s %10.1f us%n", "step", step * 1e-3);
+        System.out.printf("  %-22s %10.2f velocity, %.2f position%n%n", "passes", totals.solverIterations / (double) steps,
+                totals.positionIterations / (double) steps);
+    }
+
+    static class Totals implements PhysicsMetrics {
+        final long[] phases = new long[StepStats.PHASES];
+        long step = 0;
+        long solverIterations = 0, positionIterations = 0;
+        StepStats last;
+
+        @Override
+        public void stepCompleted(StepStats s) {
+            for (int i = 0; i < phases.length; i++)
+                phases[i] += s.phaseNanos[i];
+            step += s.stepNanos;
+            solverIterations += s.solverIterations;
+            positionIterations += s.positionIterations;
+            last = s;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package physics.collisions;
+
+import java.util.List;
+
+import physics.objects.PhysicsObject;
+
+// finds candidate pairs for the narrowphase
+public interface Broadphase {
+
+    interface PairCallback {
+        // o1 is never sleeping
+        void pair(PhysicsObject o1, PhysicsObject o2);
+    }
+
+    // object entered the world
+    void add(PhysicsObject o);
+
+    // object left the world, wakes whatever was resting against it
+    void remove(PhysicsObject o);
+
+    // called at the start of every step with the objects being simulated
+    void update(List<PhysicsObject> objects);
+
+    // emit each overlapping unordered pair once, pairs where both objects sleep
+    // are skipped
+    void findPairs(List<PhysicsObject> objects, PairCallback callback);
+
+    // drop every object, used when a world switches strategies
+    void clear();
+
+    // release worker threads, called once the world drops this broadphase or
+    // its updater stops. it is not used again afterwards
+    default void shutdown() {
+    }
+}
@@ -0,0 +1,136 @@
+package physics.collisions;
+
+import java.util.List;
+
+import physics.objects.PhysicsObject;
+import physics.process.PhysicsWorld;
+import physics.structures.Chunk;
+
+// uniform grid broadphase over the handler's chunks
+public class ChunkGridBroadphase implements Broadphase {
+
+    protected final PhysicsWorld handler;
+    private final int[] occuppiedChunks = new int[4]; // scratch for chunk ranges
+
+    public ChunkGridBroadphase(PhysicsWorld handler) {
+        this.handler = handler;
+    }
+
+    @Override
+    public void add(PhysicsObject o) {
+        // empty chunk range, the next update registers it
+        o.cMinCx = 0;
+        o.cMaxCx = -1;
+        o.cMinCy = 0;
+        o.cMaxCy = -1;
+    }
+
+    @Override
+    public void remove(PhysicsObject o) {
+        // remove from any chunks the object occupied
+        int ref = 0;
+        for (int cx = o.cMinCx; cx <= o.cMaxCx; cx++) {
+            for (int cy = o.cMinCy; cy <= o.cMaxCy; cy++, ref++) {
+                Chunk ch = handler.getChunk(cx, cy);
+                if (ch == null)
+                    continue;
+                ch.removeAt(o.chunkSlots[ref]);
+                for (int j = 0, n = ch.size(); j < n; j++) {
+                    ch.get(j).forceWake();
+                }
+            }
+        }
+        add(o);
+    }
+
+    @Override
+    public void update(List<PhysicsObject> objects) {
+        int size = objects.size();
+        for (int i = 0; i < size; i++) {
+            updateObjectsChunks(objects.get(i));
+        }
+    }
+
+    private void updateObjectsChunks(PhysicsObject o) {
+
+        int chunkDimension = handler.chunkDimension;
+
+        int ncx = (int) (Math.floor(o.pos.x / chunkDimension));
+        int ncy = (int) (Math.floor(o.pos.y / chunkDimension));
+
+        // if the chunk changed, and the object is large, it will occupy different
+        // chunks
+
+        o.getOccuppiedChunks(chunkDimension, occuppiedChunks);
+        int minCx = occuppiedChunks[0];
+        int maxCx = occuppiedChunks[1];
+        int minCy = occuppiedChunks[2];
+        int maxCy = occuppiedChunks[3];
+
+        if (minCx == o.cMinCx && maxCx == o.cMaxCx && minCy == o.cMinCy && maxCy == o.cMaxCy)
+            return;
+
+        // remove from olds, o.chunkSlots holds the slot in each old chunk
+        int ref = 0;
+        for (int cx = o.cMinCx; cx <= o.cMaxCx; cx++) {
+            for (int cy = o.cMinCy; cy <= o.cMaxCy; cy++, ref++) {
+                Chunk old = handler.getChunk(cx, cy);
+                if (old != null)
+                    old.removeAt(o.chunkSlots[ref]);
+            }
+        }
+
+        // add to news
+        int cells = (maxCx - minCx + 1) * (maxCy - minCy + 1);
+        if (o.chunkSlots.length < cells)
+            o.chunkSlots = new int[Math.max(cells, o.chunkSlots.length << 1)];
+        ref = 0;
+        for (int cx = minCx; cx <= maxCx; cx++) {
+            for (int cy = minCy; cy <= maxCy; cy++, ref++) {
+                Chunk chunk = handler.getOrCreateChunk(cx, cy);
+                o.chunkSlots[ref] = chunk.add(o, ref);
+            }
+        }
+
+        // update object chunk pos
+        o.cx = ncx;
+        o.cy = ncy;
+        o.updateOccupiedChunks(occuppiedChunks);
+    }
+
+    @Override
+    public void findPairs(List<PhysicsObject> objects, PairCallback callback) {
+        // every unordered pair is emitted exactly once without a pair set:
+        // - two awake objects both see each other, the lower id emits
+        // - a pair sharing several chunks is emitted only from the first shared
+        // chunk, (max of min cx, max of min cy)
+        int size = objects.size();
+        for (int i = 0; i < size; i++) {
+            PhysicsObject o1 = objects.get(i);
+            if (o1.sleeping)
+                continue;
+            for (int cx = o1.cMinCx; cx <= o1.cMaxCx; cx++) {
+                for (int cy = o1.cMinCy; cy <= o1.cMaxCy; cy++) {
+                    Chunk ch = handler.getChunk(cx, cy);
+                    if (ch == null)
+                        continue;
+                    for (int j = 0, n = ch.size(); j < n; j++) {
+                        PhysicsObject o2 = ch.get(j);
+                        if (o2 == o1)
+                            continue;
+                        if (!o2.sleeping && o2.id < o1.id)
+                            continue; // o2 emits this one
+                        if (cx != Math.max(o1.cMinCx, o2.cMinCx) || cy != Math.max(o1.cMinCy, o2.cMinCy))
+                            continue; // already handled this unordered pair in another chunk
+                        callback.pair(o1, o2);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        handler.getChunks().clear();
+    }
+}
@@ -3,17 +3,20 @@ package physics.collisions;
 import physics.objects.PhysicsBall;
 import physics.objects.PhysicsRect;
 import physics.structures.Manifold;
-import physics.structures.Vector2;
 
 public class Collision {
     private static final double EPSILON = 1e-6;
 
+    // all tests work on doubles and write into the manifold's own storage,
+    // nothing is allocated once the manifold pool is warm
+
     public static Manifold circleCircle(PhysicsBall b1, PhysicsBall b2) {
 
-        Vector2 distance = b1.pos.sub(b2.pos); // b2 -> b1
+        double dx = b1.pos.x - b2.pos.x; // b2 -> b1
+        double dy = b1.pos.y - b2.pos.y;
         double rSum = b1.radius + b2.radius;
 
-        double distanceSqrd = distance.lengthSquared();
+        double distanceSqrd = dx * dx + dy * dy;
         if (distanceSqrd >= rSum * rSum)
             return null;
 
@@ -27,18 +30,18 @@ public class Collision {
         // same center or extremely close — pick a stable normal
         if (dist < EPSILON) {
             m.penetration = rSum;
-            m.normal = new Vector2(1, 0);
-            m.contacts.add(b1.pos);
+            m.normal.set(1, 0);
+            m.addContactPoint(b1.pos.x, b1.pos.y);
         } else {
             m.penetration = rSum - dist;
-            m.normal = distance.scale(1.0 / dist);
-            m.contacts.add(b2.pos.add(m.normal.scale(b2.radius - m.penetration * 0.5)));
+            double inv = 1.0 / dist;
+            m.normal.set(dx * inv, dy * inv);
+            double reach = b2.radius - m.penetration * 0.5;
+            m.addContactPoint(b2.pos.x + m.normal.x * reach, b2.pos.y + m.normal.y * reach);
         }
 
         // ensure normal is normalized
-        if (m.normal != null) {
-            m.normal.normalizeLocal();
-        }
+        m.normal.normalizeLocal();
 
         return m;
     }
@@ -49,17 +52,20 @@ public class Collision {
         double halfH = r.height / 2;
 
         // vetor from rect to circ
-        Vector2 d = b.pos.sub(r.pos);
+        double dx = b.pos.x - r.pos.x;
+        double dy = b.pos.y - r.pos.y;
 
         // clamp d to the rectangle extents
-        double clampedX = clamp(d.x, -halfW, halfW);
-        double clampedY = clamp(d.y, -halfH, halfH);
+        double clampedX = clamp(dx, -halfW, halfW);
+        double clampedY = clamp(dy, -halfH, halfH);
 
-        Vector2 closestPoint = r.pos.add(new Vector2(clampedX, clampedY));
+        double closestX = r.pos.x + clampedX;
+        double closestY = r.pos.y + clampedY;
 
         // from closest point to circle
-        Vector2 distanceToClosestPoint = b.pos.sub(closestPoint);
-        double distSqrd = distanceToClosestPoint.lengthSquared();
+        double toCircleX = b.pos.x - closestX;
+        double toCircleY = b.pos.y - closestY;
+        double distSqrd = toCircleX * toCircleX + toCircleY * toCircleY;
         double rSqrd = b.radius * b.radius;
 
         if (distSqrd > rSqrd) {
@@ -71,41 +77,39 @@ public class Collision {
         m.o2 = r;
         m.collided = true;
 
-        boolean insideX = Math.abs(clampedX - d.x) < EPSILON;
-        boolean insideY = Math.abs(clampedY - d.y) < EPSILON;
+        boolean insideX = Math.abs(clampedX - dx) < EPSILON;
+        boolean insideY = Math.abs(clampedY - dy) < EPSILON;
 
         // if circle is exactly on the border ( closest == center )
         // choose the nearest rectangle face as the separation direction
         if (insideX && insideY) {
 
-            double distLeft = Math.abs(d.x + halfW);
-            double distTop = Math.abs(d.y + halfH);
-            double distRight = Math.abs(halfW - d.x);
-            double distBottom = Math.abs(halfH - d.y);
+            double distLeft = Math.abs(dx + halfW);
+            double distTop = Math.abs(dy + halfH);
+            double distRight = Math.abs(halfW - dx);
+            double distBottom = Math.abs(halfH - dy);
 
             // choose smallest distance to a face — that'll be the separation direction
             double minDist = distLeft;
-            Vector2 normal = new Vector2(-1, 0);
+            m.normal.set(-1, 0);
 
             if (distRight < minDist) {
                 minDist = distRight;
-                normal = new Vector2(1, 0);
+                m.normal.set(1, 0);
             }
             if (distTop < minDist) {
                 minDist = distTop;
-                normal = new Vector2(0, -1);
+                m.normal.set(0, -1);
             }
             if (distBottom < minDist) {
                 minDist = distBottom;
-                normal = new Vector2(0, 1);
+                m.normal.set(0, 1);
             }
 
             // penetration magnitude when center is inside the rect
             m.penetration = b.radius + minDist;
-            m.normal = normal;
             // approximate contact point as the point on the rect face nearest the circle
-            Vector2 contactPoint = r.pos.add(normal.scale(-minDist));
-            m.contacts.add(contactPoint);
+            m.addContactPoint(r.pos.x + m.normal.x * -minDist, r.pos.y + m.normal.y * -minDist);
             // make sure normal is unit length
             return m;
         }
@@ -115,39 +119,38 @@ public class Collision {
         // defensive guard for tiny distances
         if (dist < EPSILON) {
             // fallback: point from rect center to circle center
-            Vector2 fallback = b.pos.sub(r.pos);
-            if (fallback.lengthSquared() < EPSILON) {
+            double fallbackLen2 = dx * dx + dy * dy;
+            if (fallbackLen2 < EPSILON) {
                 // choose up
-                m.normal = new Vector2(0, -1);
+                m.normal.set(0, -1);
             } else {
-                m.normal = fallback.scale(1.0 / fallback.length());
+                double inv = 1.0 / Math.sqrt(fallbackLen2);
+                m.normal.set(dx * inv, dy * inv);
             }
             m.penetration = b.radius;
         } else {
             m.penetration = b.radius - dist;
-            m.normal = distanceToClosestPoint.scale(1.0 / dist);
+            double inv = 1.0 / dist;
+            m.normal.set(toCircleX * inv, toCircleY * inv);
         }
         // normalize
-        if (m.normal != null)
-            m.normal.normalizeLocal();
-        m.contacts.add(closestPoint);
+        m.normal.normalizeLocal();
+        m.addContactPoint(closestX, closestY);
 
         return m;
     }
 
     public static Manifold rectRect(PhysicsRect r1, PhysicsRect r2) {
-        int[] sides1 = r1.getCorners();
-        int[] sides2 = r2.getCorners();
-
-        double r1xMin = (double) sides1[0];
-        double r1yMin = (double) sides1[1];
-        double r1xMax = (double) sides1[2];
-        double r1yMax = (double) sides1[3];
+        // same integer corners as PhysicsRect.getCorners
+        double r1xMin = (int) (r1.pos.x - r1.width / 2);
+        double r1yMin = (int) (r1.pos.y - r1.height / 2);
+        double r1xMax = (int) (r1.pos.x + r1.width / 2);
+        double r1yMax = (int) (r1.pos.y + r1.height / 2);
 
-        double r2xMin = (double) sides2[0];
-        double r2yMin = (double) sides2[1];
-        double r2xMax = (double) sides2[2];
-        double r2yMax = (double) sides2[3];
+        double r2xMin = (int) (r2.pos.x - r2.width / 2);
+        double r2yMin = (int) (r2.pos.y - r2.height / 2);
+        double r2xMax = (int) (r2.pos.x + r2.width / 2);
+        double r2yMax = (int) (r2.pos.y + r2.height / 2);
 
         double overlapX = Math.min(r1xMax, r2xMax) - Math.max(r1xMin, r2xMin);
         if (overlapX <= 0)
@@ -163,15 +166,15 @@ public class Collision {
 
         if (overlapX < overlapY) {
             m.penetration = overlapX;
-            m.normal = new Vector2(r1.pos.x < r2.pos.x ? -1 : 1, 0);
+            m.normal.set(r1.pos.x < r2.pos.x ? -1 : 1, 0);
         } else {
             m.penetration = overlapY;
-            m.normal = new Vector2(0, r1.pos.y < r2.pos.y ? -1 : 1);
+            m.normal.set(0, r1.pos.y < r2.pos.y ? -1 : 1);
         }
 
         // contact approximation
-        m.contacts.add(new Vector2((Math.max(r1xMin, r2xMin) + Math.min(r1xMax, r2xMax)) / 2,
-                (Math.max(r1yMin, r2yMin) + Math.min(r1yMax, r2yMax)) / 2));
+        m.addContactPoint((Math.max(r1xMin, r2xMin) + Math.min(r1xMax, r2xMax)) / 2,
+                (Math.max(r1yMin, r2yMin) + Math.min(r1yMax, r2yMax)) / 2);
 
         return m;
     }
@@ -0,0 +1,439 @@
+package physics.collisions;
+
+import java.util.Arrays;
+import java.util.List;
+
+import physics.objects.PhysicsObject;
+import physics.process.PhysicsWorld;
+import physics.structures.AABB;
+
+// dynamic bounding volume tree over fat AABBs
+// every object is a single leaf no matter its size, a leaf is only reinserted
+// when its tight bounds leave the fat box
+public class DynamicTreeBroadphase implements Broadphase {
+
+    private static final int NULL = -1;
+
+    public double fatMargin = 4.0; // world units added around each leaf
+    public double velocityMargin = 2.0 / 60; // seconds of travel added around moving leaves
+
+    private final PhysicsWorld handler;
+
+    // node storage, parent doubles as the free list link
+    private double[] minX, minY, maxX, maxY;
+    private int[] parent, child1, child2, height;
+    private PhysicsObject[] leafObject;
+    private int capacity = 0;
+    private int freeList = NULL;
+    private int root = NULL;
+    private int leafCount = 0;
+
+    private int[] stack = new int[64];
+    private final AABB tight = new AABB();
+
+    public DynamicTreeBroadphase(PhysicsWorld handler) {
+        this.handler = handler;
+        grow(64);
+    }
+
+    @Override
+    public void add(PhysicsObject o) {
+        if (o.broadphaseProxy != NULL)
+            return;
+        o.computeBounds(o.bounds);
+        int leaf = allocateNode();
+        leafObject[leaf] = o;
+        setFat(leaf, o);
+        insertLeaf(leaf);
+        o.broadphaseProxy = leaf;
+        leafCount++;
+    }
+
+    @Override
+    public void remove(PhysicsObject o) {
+        int leaf = o.broadphaseProxy;
+        if (leaf == NULL)
+            return;
+
+        removeLeaf(leaf);
+        freeNode(leaf);
+        o.broadphaseProxy = NULL;
+        leafCount--;
+
+        // wake objects that were resting against it
+        int top = push(0, root);
+        while (top > 0) {
+            int n = stack[--top];
+            if (!overlaps(n, o.bounds))
+                continue;
+            if (isLeaf(n))
+                leafObject[n].forceWake();
+            else
+                top = push(push(top, child1[n]), child2[n]);
+        }
+    }
+
+    @Override
+    public void update(List<PhysicsObject> objects) {
+    }
+
+    @Override
+    public void findPairs(List<PhysicsObject> objects, PairCallback callback) {
+        int chunkDimension = handler.chunkDimension;
+        int size = objects.size();
+
+        // refit leaves that left their fat box. sleeping bodies too, positional
+        // correction still nudges them and awake neighbours query against them
+        for (int i = 0; i < size; i++) {
+            PhysicsObject o = objects.get(i);
+            int leaf = o.broadphaseProxy;
+            if (leaf == NULL)
+                continue;
+            o.computeBounds(o.bounds);
+            if (!containsTight(leaf, o.bounds)) {
+                removeLeaf(leaf);
+                setFat(leaf, o);
+                insertLeaf(leaf);
+            }
+            // chunk coords are kept for view distance checks
+            o.cx = (int) Math.floor(o.pos.x / chunkDimension);
+            o.cy = (int) Math.floor(o.pos.y / chunkDimension);
+            o.cMinCx = (int) Math.floor(o.bounds.minX / chunkDimension);
+            o.cMaxCx = (int) Math.floor(o.bounds.maxX / chunkDimension);
+            o.cMinCy = (int) Math.floor(o.bounds.minY / chunkDimension);
+            o.cMaxCy = (int) Math.floor(o.bounds.maxY / chunkDimension);
+        }
+
+        // each awake object queries with its tight bounds, pairs of two awake
+        // objects are emitted by the lower id
+        for (int i = 0; i < size; i++) {
+            PhysicsObject o1 = objects.get(i);
+            if (o1.sleeping || o1.broadphaseProxy == NULL)
+                continue;
+            AABB b = o1.bounds;
+
+            int top = push(0, root);
+            while (top > 0) {
+                int n = stack[--top];
+                if (!overlaps(n, b))
+                    continue;
+                if (isLeaf(n)) {
+                    PhysicsObject o2 = leafObject[n];
+                    if (o2 != o1 && (o2.sleeping || o1.id < o2.id) && b.overlaps(o2.bounds))
+                        callback.pair(o1, o2);
+                } else {
+                    top = push(push(top, child1[n]), child2[n]);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (int n = 0; n < capacity; n++) {
+            if (leafObject[n] != null)
+                leafObject[n].broadphaseProxy = NULL;
+        }
+        Arrays.fill(leafObject, null);
+        root = NULL;
+        leafCount = 0;
+        freeList = NULL;
+        int old = capacity;
+        capacity = 0;
+        grow(old);
+    }
+
+    public int size() {
+        return leafCount;
+    }
+
+    public int getHeight() {
+        return root == NULL ? 0 : height[root];
+    }
+
+    private void setFat(int leaf, PhysicsObject o) {
+        AABB b = o.bounds;
+        double dx = o.vel.x * velocityMargin;
+        double dy = o.vel.y * velocityMargin;
+        minX[leaf] = b.minX - fatMargin + Math.min(dx, 0);
+        minY[leaf] = b.minY - fatMargin + Math.min(dy, 0);
+        maxX[leaf] = b.maxX + fatMargin + Math.max(dx, 0);
+        maxY[leaf] = b.maxY + fatMargin + Math.max(dy, 0);
+    }
+
+    private boolean isLeaf(int n) {
+        return child1[n] == NULL;
+    }
+
+    private boolean overlaps(int n, AABB b) {
+        return minX[n] <= b.maxX && maxX[n] >= b.minX && minY[n] <= b.maxY && maxY[n] >= b.minY;
+    }
+
+    private boolean containsTight(int n, AABB b) {
+        return minX[n] <= b.minX && minY[n] <= b.minY && maxX[n] >= b.maxX && maxY[n] >= b.maxY;
+    }
+
+    private int push(int top, int n) {
+        if (n == NULL)
+            return top;
+        if (top == stack.length)
+            stack = Arrays.copyOf(stack, top << 1);
+        stack[top] = n;
+        return top + 1;
+    }
+
+    // node pool
+
+    private void grow(int newCapacity) {
+        int old = capacity;
+        if (old == 0) {
+            minX = new double[newCapacity];
+            minY = new double[newCapacity];
+            maxX = new double[newCapacity];
+            maxY = new double[newCapacity];
+            parent = new int[newCapacity];
+            child1 = new int[newCapacity];
+            child2 = new int[newCapacity];
+            height = new int[newCapacity];
+            leafObject = new PhysicsObject[newCapacity];
+        } else {
+            minX = Arrays.copyOf(minX, newCapacity);
+            minY = Arrays.copyOf(minY, newCapacity);
+            maxX = Arrays.copyOf(maxX, newCapacity);
+            maxY = Arrays.copyOf(maxY, newCapacity);
+            parent = Arrays.copyOf(parent, newCapacity);
+            child1 = Arrays.copyOf(child1, newCapacity);
+            child2 = Arrays.copyOf(child2, newCapacity);
+            height = Arrays.copyOf(height, newCapacity);
+            leafObject = Arrays.copyOf(leafObject, newCapacity);
+        }
+        // chain new nodes into the free list
+        for (int n = old; n < newCapacity; n++) {
+            parent[n] = (n + 1 < newCapacity) ? n + 1 : freeList;
+            child1[n] = NULL;
+            child2[n] = NULL;
+            height[n] = -1;
+        }
+        freeList = old;
+        capacity = newCapacity;
+    }
+
+    private int allocateNode() {
+        if (freeList == NULL)
+            grow(capacity << 1);
+        int n = freeList;
+        freeList = parent[n];
+        parent[n] = NULL;
+        child1[n] = NULL;
+        child2[n] = NULL;
+        height[n] = 0;
+        leafObject[n] = null;
+        return n;
+    }
+
+    private void freeNode(int n) {
+        parent[n] = freeList;
+        child1[n] = NULL;
+        child2[n] = NULL;
+        height[n] = -1;
+        leafObject[n] = null;
+        freeList = n;
+    }
+
+    // tree maintenance, surface area heuristic insertion with AVL rotations
+
+    private double perimeter(int n) {
+        return 2.0 * ((maxX[n] - minX[n]) + (maxY[n] - minY[n]));
+    }
+
+    private double unionPerimeter(int a, int b) {
+        double w = Math.max(maxX[a], maxX[b]) - Math.min(minX[a], minX[b]);
+        double h = Math.max(maxY[a], maxY[b]) - Math.min(minY[a], minY[b]);
+        return 2.0 * (w + h);
+    }
+
+    private void setUnion(int n, int a, int b) {
+        minX[n] = Math.min(minX[a], minX[b]);
+        minY[n] = Math.min(minY[a], minY[b]);
+        maxX[n] = Math.max(maxX[a], maxX[b]);
+        maxY[n] = Math.max(maxY[a], maxY[b]);
+    }
+
+    private void insertLeaf(int leaf) {
+        if (root == NULL) {
+            root = leaf;
+            parent[root] = NULL;
+            return;
+        }
+
+        // find the best sibling
+        int index = root;
+        while (!isLeaf(index)) {
+            int c1 = child1[index];
+            int c2 = child2[index];
+
+            double area = perimeter(index);
+            double combinedArea = unionPerimeter(index, leaf);
+
+            // cost of creating a new parent for this node and the new leaf
+            double cost = 2.0 * combinedArea;
+            // minimum cost of pushing the leaf further down the tree
+            double inheritanceCost = 2.0 * (combinedArea - area);
+
+            double cost1 = unionPerimeter(leaf, c1) + inheritanceCost;
+            if (!isLeaf(c1))
+                cost1 -= perimeter(c1);
+            double cost2 = unionPerimeter(leaf, c2) + inheritanceCost;
+            if (!isLeaf(c2))
+                cost2 -= perimeter(c2);
+
+            if (cost < cost1 && cost < cost2)
+                break;
+
+            index = (cost1 < cost2) ? c1 : c2;
+        }
+
+        int sibling = index;
+        int oldParent = parent[sibling];
+        int newParent = allocateNode();
+        parent[newParent] = oldParent;
+        setUnion(newParent, leaf, sibling);
+        height[newParent] = height[sibling] + 1;
+
+        if (oldParent != NULL) {
+            if (child1[oldParent] == sibling)
+                child1[oldParent] = newParent;
+            else
+                child2[oldParent] = newParent;
+        } else {
+            root = newParent;
+        }
+        child1[newParent] = sibling;
+        child2[newParent] = leaf;
+        parent[sibling] = newParent;
+        parent[leaf] = newParent;
+
+        refitFrom(parent[leaf]);
+    }
+
+    private void removeLeaf(int leaf) {
+        if (leaf == root) {
+            root = NULL;
+            return;
+        }
+
+        int p = parent[leaf];
+        int grandParent = parent[p];
+        int sibling = (child1[p] == leaf) ? child2[p] : child1[p];
+
+        if (grandParent != NULL) {
+            // destroy the parent and connect the sibling to the grand parent
+            if (child1[grandParent] == p)
+                child1[grandParent] = sibling;
+            else
+                child2[grandParent] = sibling;
+            parent[sibling] = grandParent;
+            freeNode(p);
+            refitFrom(grandParent);
+        } else {
+            root = sibling;
+            parent[sibling] = NULL;
+            freeNode(p);
+        }
+        parent[leaf] = NULL;
+    }
+
+    // walk back up fixing heights and bounds
+    private void refitFrom(int index) {
+        while (index != NULL) {
+            index = balance(index);
+            int c1 = child1[index];
+            int c2 = child2[index];
+            height[index] = 1 + Math.max(height[c1], height[c2]);
+            setUnion(index, c1, c2);
+            index = parent[index];
+        }
+    }
+
+    // rotate iA if it is imbalanced, returns the new subtree root
+    private int balance(int iA) {
+        if (isLeaf(iA) || height[iA] < 2)
+            return iA;
+
+        int iB = child1[iA];
+        int iC = child2[iA];
+        int bal = height[iC] - height[iB];
+
+        // rotate C up
+        if (bal > 1) {
+            int iF = child1[iC];
+            int iG = child2[iC];
+
+            child1[iC] = iA;
+            parent[iC] = parent[iA];
+            parent[iA] = iC;
+            replaceChild(parent[iC], iA, iC);
+
+            if (height[iF] > height[iG]) {
+                child2[iC] = iF;
+                child2[iA] = iG;
+                parent[iG] = iA;
+                setUnion(iA, iB, iG);
+                setUnion(iC, iA, iF);
+                height[iA] = 1 + Math.max(height[iB], height[iG]);
+                height[iC] = 1 + Math.max(height[iA], height[iF]);
+            } else {
+                child2[iC] = iG;
+                child2[iA] = iF;
+                parent[iF] = iA;
+                setUnion(iA, iB, iF);
+                setUnion(iC, iA, iG);
+                height[iA] = 1 + Math.max(height[iB], height[iF]);
+                height[iC] = 1 + Math.max(height[iA], height[iG]);
+            }
+            return iC;
+        }
+
+        // rotate B up
+        if (bal < -1) {
+            int iD = child1[iB];
+            int iE = child2[iB];
+
+            child1[iB] = iA;
+            parent[iB] = parent[iA];
+            parent[iA] = iB;
+            replaceChild(parent[iB], iA, iB);
+
+            if (height[iD] > height[iE]) {
+                child2[iB] = iD;
+                child1[iA] = iE;
+                parent[iE] = iA;
+                setUnion(iA, iC, iE);
+                setUnion(iB, iA, iD);
+                height[iA] = 1 + Math.max(height[iC], height[iE]);
+                height[iB] = 1 + Math.max(height[iA], height[iD]);
+            } else {
+                child2[iB] = iE;
+                child1[iA] = iD;
+                parent[iD] = iA;
+                setUnion(iA, iC, iD);
+                setUnion(iB, iA, iE);
+                height[iA] = 1 + Math.max(height[iC], height[iD]);
+                height[iB] = 1 + Math.max(height[iA], height[iE]);
+            }
+            return iB;
+        }
+
+        return iA;
+    }
+
+    private void replaceChild(int p, int oldChild, int newChild) {
+        if (p == NULL) {
+            root = newChild;
+        } else if (child1[p] == oldChild) {
+            child1[p] = newChild;
+        } else {
+            child2[p] = newChild;
+        }
+    }
+}
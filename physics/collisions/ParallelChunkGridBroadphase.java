@@ -0,0 +1,155 @@
+package physics.collisions;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import physics.objects.PhysicsObject;
+import physics.process.PhysicsWorld;
+import physics.structures.Chunk;
+import physics.structures.ChunkMap;
+
+// chunk grid whose pair search runs on a fork-join pool
+// occupied chunks are cut into stripes of the packed chunk list, every stripe
+// collects its pairs into its own buffer and the buffers are replayed in
+// stripe order, so the callback sees the same sequence whatever the thread
+// count. chunk membership updates stay on the caller thread
+public class ParallelChunkGridBroadphase extends ChunkGridBroadphase {
+
+    public static int STRIPES_PER_THREAD = 4;
+    public static int MIN_CHUNKS_PER_STRIPE = 64;
+
+    private final ForkJoinPool pool;
+    private PairBuffer[] buffers = new PairBuffer[0];
+
+    public ParallelChunkGridBroadphase(PhysicsWorld handler) {
+        this(handler, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ParallelChunkGridBroadphase(PhysicsWorld handler, int threads) {
+        super(handler);
+        this.pool = new ForkJoinPool(Math.max(1, threads));
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    @Override
+    public void findPairs(List<PhysicsObject> objects, PairCallback callback) {
+        ChunkMap chunks = handler.getChunks();
+        int chunkCount = chunks.size();
+        if (chunkCount == 0)
+            return;
+
+        int stripes = Math.min(pool.getParallelism() * STRIPES_PER_THREAD,
+                (chunkCount + MIN_CHUNKS_PER_STRIPE - 1) / MIN_CHUNKS_PER_STRIPE);
+        stripes = Math.max(1, stripes);
+        ensureBuffers(stripes);
+
+        if (stripes == 1) {
+            scanStripe(chunks, 0, chunkCount, buffers[0]);
+        } else {
+            pool.invoke(new StripeTask(chunks, 0, stripes, chunkCount, stripes));
+        }
+
+        // deterministic merge
+        for (int s = 0; s < stripes; s++) {
+            PairBuffer b = buffers[s];
+            for (int i = 0; i < b.size; i++) {
+                callback.pair(b.first[i], b.second[i]);
+            }
+            b.clear();
+        }
+    }
+
+    // every pair is owned by the first chunk both objects share, (max of min
+    // cx, max of min cy), so stripes never emit the same pair twice
+    private static void scanStripe(ChunkMap chunks, int from, int to, PairBuffer out) {
+        for (int c = from; c < to; c++) {
+            Chunk ch = chunks.getAt(c);
+            int n = ch.size();
+            for (int i = 0; i < n; i++) {
+                PhysicsObject a = ch.get(i);
+                for (int j = i + 1; j < n; j++) {
+                    PhysicsObject b = ch.get(j);
+                    if (a.sleeping && b.sleeping)
+                        continue;
+                    if (ch.cx != Math.max(a.cMinCx, b.cMinCx) || ch.cy != Math.max(a.cMinCy, b.cMinCy))
+                        continue;
+                    // same orientation as the serial grid: awake object first,
+                    // lower id first when both are awake
+                    if (a.sleeping || (!b.sleeping && b.id < a.id))
+                        out.add(b, a);
+                    else
+                        out.add(a, b);
+                }
+            }
+        }
+    }
+
+    private void ensureBuffers(int stripes) {
+        if (buffers.length >= stripes)
+            return;
+        int old = buffers.length;
+        buffers = Arrays.copyOf(buffers, stripes);
+        for (int i = old; i < stripes; i++)
+            buffers[i] = new PairBuffer();
+    }
+
+    @Override
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    // splits [lo, hi) stripes in halves until one is left
+    @SuppressWarnings("serial") // fork-join tasks are never serialized
+    private class StripeTask extends RecursiveAction {
+        private final ChunkMap chunks;
+        private final int lo, hi, chunkCount, stripes;
+
+        StripeTask(ChunkMap chunks, int lo, int hi, int chunkCount, int stripes) {
+            this.chunks = chunks;
+            this.lo = lo;
+            this.hi = hi;
+            this.chunkCount = chunkCount;
+            this.stripes = stripes;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo == 1) {
+                int from = (int) ((long) chunkCount * lo / stripes);
+                int to = (int) ((long) chunkCount * (lo + 1) / stripes);
+                scanStripe(chunks, from, to, buffers[lo]);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new StripeTask(chunks, lo, mid, chunkCount, stripes),
+                    new StripeTask(chunks, mid, hi, chunkCount, stripes));
+        }
+    }
+
+    // pairs found by one stripe
+    private static class PairBuffer {
+        PhysicsObject[] first = new PhysicsObject[256];
+        PhysicsObject[] second = new PhysicsObject[256];
+        int size = 0;
+
+        void add(PhysicsObject a, PhysicsObject b) {
+            if (size == first.length) {
+                first = Arrays.copyOf(first, size << 1);
+                second = Arrays.copyOf(second, size << 1);
+            }
+            first[size] = a;
+            second[size++] = b;
+        }
+
+        void clear() {
+            Arrays.fill(first, 0, size, null);
+            Arrays.fill(second, 0, size, null);
+            size = 0;
+        }
+    }
+}
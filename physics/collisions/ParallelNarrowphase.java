@@ -0,0 +1,114 @@
+package physics.collisions;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import physics.objects.PhysicsObject;
+import physics.structures.Manifold;
+
+// runs o1.collide(o2) for a batch of candidate pairs on a fork-join pool
+// pairs are queued in broadphase order, every worker writes the manifold of a
+// pair into that pair's result slot, and results are collected in queue order,
+// so the output list is the same as calling collide pair by pair
+// manifolds come from the worker's own pool and go back to it on release
+public class ParallelNarrowphase implements Broadphase.PairCallback {
+
+    public static int MIN_PAIRS_PER_TASK = 256;
+
+    private final ForkJoinPool pool;
+
+    private PhysicsObject[] first = new PhysicsObject[1024];
+    private PhysicsObject[] second = new PhysicsObject[1024];
+    private Manifold[] results = new Manifold[1024];
+    private int size = 0;
+
+    public ParallelNarrowphase() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public ParallelNarrowphase(int threads) {
+        this.pool = new ForkJoinPool(Math.max(1, threads));
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    // queue a candidate pair
+    @Override
+    public void pair(PhysicsObject o1, PhysicsObject o2) {
+        if (size == first.length) {
+            first = Arrays.copyOf(first, size << 1);
+            second = Arrays.copyOf(second, size << 1);
+            results = Arrays.copyOf(results, size << 1);
+        }
+        first[size] = o1;
+        second[size++] = o2;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // collide every queued pair, add the colliding manifolds to out in queue
+    // order and clear the queue
+    public void collide(List<Manifold> out) {
+        if (size == 0)
+            return;
+
+        if (size < MIN_PAIRS_PER_TASK * 2 || pool.getParallelism() == 1) {
+            collideRange(0, size);
+        } else {
+            pool.invoke(new RangeTask(0, size));
+        }
+
+        for (int i = 0; i < size; i++) {
+            Manifold m = results[i];
+            if (m != null) {
+                if (m.collided) {
+                    out.add(m);
+                } else {
+                    Manifold.release(m);
+                }
+            }
+        }
+
+        Arrays.fill(first, 0, size, null);
+        Arrays.fill(second, 0, size, null);
+        Arrays.fill(results, 0, size, null);
+        size = 0;
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private void collideRange(int from, int to) {
+        for (int i = from; i < to; i++) {
+            results[i] = first[i].collide(second[i]); // normal o2 -> o1
+        }
+    }
+
+    // halves the range until it is small enough for one worker
+    @SuppressWarnings("serial") // fork-join tasks are never serialized
+    private class RangeTask extends RecursiveAction {
+        private final int from, to;
+
+        RangeTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= MIN_PAIRS_PER_TASK) {
+                collideRange(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RangeTask(from, mid), new RangeTask(mid, to));
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package physics.collisions;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import physics.objects.PhysicsObject;
+import physics.structures.AABB;
+
+// immutable bounding volume hierarchy over stationary objects
+// baked once by build(), the handler rebuilds it only when statics are added
+// or removed, so static geometry never takes part in the per-step loops
+public class StaticGeometryIndex {
+
+    public static final StaticGeometryIndex EMPTY = build(List.of(), 1);
+
+    private static final int LEAF_SIZE = 4;
+
+    private final PhysicsObject[] items;
+
+    // node i: bounds, leaves hold items [start, start + count), inner nodes
+    // have their left child at i + 1 and the right one at right[i]
+    private final double[] minX, minY, maxX, maxY;
+    private final int[] start, count, right;
+    private int nodeCount = 0;
+
+    private StaticGeometryIndex(PhysicsObject[] items) {
+        this.items = items;
+        int maxNodes = Math.max(1, 2 * items.length);
+        minX = new double[maxNodes];
+        minY = new double[maxNodes];
+        maxX = new double[maxNodes];
+        maxY = new double[maxNodes];
+        start = new int[maxNodes];
+        count = new int[maxNodes];
+        right = new int[maxNodes];
+    }
+
+    public static StaticGeometryIndex build(List<PhysicsObject> statics, int chunkDimension) {
+        PhysicsObject[] items = statics.toArray(new PhysicsObject[0]);
+        for (PhysicsObject o : items) {
+            o.computeBounds(o.bounds);
+            // statics never move, chunk coords are set once for view distance checks
+            o.cx = (int) Math.floor(o.pos.x / chunkDimension);
+            o.cy = (int) Math.floor(o.pos.y / chunkDimension);
+            o.cMinCx = (int) Math.floor(o.bounds.minX / chunkDimension);
+            o.cMaxCx = (int) Math.floor(o.bounds.maxX / chunkDimension);
+            o.cMinCy = (int) Math.floor(o.bounds.minY / chunkDimension);
+            o.cMaxCy = (int) Math.floor(o.bounds.maxY / chunkDimension);
+        }
+
+        StaticGeometryIndex index = new StaticGeometryIndex(items);
+        if (items.length > 0)
+            index.buildNode(0, items.length);
+        return index;
+    }
+
+    public int size() {
+        return items.length;
+    }
+
+    public PhysicsObject get(int i) {
+        return items[i];
+    }
+
+    // emit (o, static) for every static whose bounds overlap o.bounds
+    public void query(PhysicsObject o, Broadphase.PairCallback callback) {
+        if (nodeCount > 0)
+            query(0, o, o.bounds, callback);
+    }
+
+    private void query(int node, PhysicsObject o, AABB b, Broadphase.PairCallback callback) {
+        while (true) {
+            if (minX[node] > b.maxX || maxX[node] < b.minX || minY[node] > b.maxY || maxY[node] < b.minY)
+                return;
+
+            int n = count[node];
+            if (n > 0) {
+                for (int i = start[node], end = start[node] + n; i < end; i++) {
+                    PhysicsObject s = items[i];
+                    if (s.bounds.overlaps(b))
+                        callback.pair(o, s);
+                }
+                return;
+            }
+
+            query(node + 1, o, b, callback);
+            node = right[node];
+        }
+    }
+
+    private int buildNode(int from, int to) {
+        int node = nodeCount++;
+
+        double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY;
+        double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY;
+        for (int i = from; i < to; i++) {
+            AABB b = items[i].bounds;
+            x0 = Math.min(x0, b.minX);
+            y0 = Math.min(y0, b.minY);
+            x1 = Math.max(x1, b.maxX);
+            y1 = Math.max(y1, b.maxY);
+        }
+        minX[node] = x0;
+        minY[node] = y0;
+        maxX[node] = x1;
+        maxY[node] = y1;
+
+        if (to - from <= LEAF_SIZE) {
+            start[node] = from;
+            count[node] = to - from;
+            return node;
+        }
+
+        // median split on the longest axis by center
+        Comparator<PhysicsObject> byCenter = (x1 - x0 >= y1 - y0)
+                ? Comparator.comparingDouble(o -> o.bounds.minX + o.bounds.maxX)
+                : Comparator.comparingDouble(o -> o.bounds.minY + o.bounds.maxY);
+        Arrays.sort(items, from, to, byCenter);
+
+        int mid = (from + to) >>> 1;
+        buildNode(from, mid);
+        right[node] = buildNode(mid, to);
+        return node;
+    }
+}
@@ -0,0 +1,148 @@
+package physics.collisions;
+
+import java.util.Arrays;
+import java.util.List;
+
+import physics.objects.PhysicsObject;
+import physics.process.PhysicsWorld;
+import physics.structures.AABB;
+
+// incremental sort and sweep on a single axis
+// objects stay sorted by their min bound between steps, so the per-step
+// insertion sort only has to fix the few objects that overtook a neighbour
+public class SweepAndPruneBroadphase implements Broadphase {
+
+    private final PhysicsWorld handler;
+    private final boolean sortOnY; // wide, flat scenes want x
+
+    private PhysicsObject[] sorted = new PhysicsObject[64];
+    private int count = 0;
+
+    public SweepAndPruneBroadphase(PhysicsWorld handler) {
+        this(handler, false);
+    }
+
+    public SweepAndPruneBroadphase(PhysicsWorld handler, boolean sortOnY) {
+        this.handler = handler;
+        this.sortOnY = sortOnY;
+    }
+
+    @Override
+    public void add(PhysicsObject o) {
+        if (count == sorted.length)
+            sorted = Arrays.copyOf(sorted, count << 1);
+        o.computeBounds(o.bounds);
+        sorted[count++] = o; // sifted into place on the next update
+    }
+
+    @Override
+    public void remove(PhysicsObject o) {
+        int idx = -1;
+        for (int i = 0; i < count; i++) {
+            if (sorted[i] == o) {
+                idx = i;
+                break;
+            }
+        }
+        if (idx < 0)
+            return;
+
+        // shift instead of swap, keeps the order
+        System.arraycopy(sorted, idx + 1, sorted, idx, count - idx - 1);
+        sorted[--count] = null;
+
+        // wake objects that were resting against it
+        AABB b = o.bounds;
+        for (int i = 0; i < count; i++) {
+            PhysicsObject o2 = sorted[i];
+            if (min(o2.bounds) > max(b))
+                break;
+            if (o2.bounds.overlaps(b))
+                o2.forceWake();
+        }
+    }
+
+    @Override
+    public void update(List<PhysicsObject> objects) {
+        // refresh bounds, chunk coords are kept for view distance checks
+        int chunkDimension = handler.chunkDimension;
+        for (int i = 0; i < count; i++) {
+            PhysicsObject o = sorted[i];
+            o.computeBounds(o.bounds);
+            o.cx = (int) Math.floor(o.pos.x / chunkDimension);
+            o.cy = (int) Math.floor(o.pos.y / chunkDimension);
+            o.cMinCx = (int) Math.floor(o.bounds.minX / chunkDimension);
+            o.cMaxCx = (int) Math.floor(o.bounds.maxX / chunkDimension);
+            o.cMinCy = (int) Math.floor(o.bounds.minY / chunkDimension);
+            o.cMaxCy = (int) Math.floor(o.bounds.maxY / chunkDimension);
+        }
+    }
+
+    @Override
+    public void findPairs(List<PhysicsObject> objects, PairCallback callback) {
+        // objects moved during integration
+        for (int i = 0; i < count; i++) {
+            PhysicsObject o = sorted[i];
+            if (!o.sleeping)
+                o.computeBounds(o.bounds);
+        }
+
+        insertionSort();
+
+        for (int i = 0; i < count; i++) {
+            PhysicsObject a = sorted[i];
+            double aMax = max(a.bounds);
+            for (int j = i + 1; j < count; j++) {
+                PhysicsObject b = sorted[j];
+                if (min(b.bounds) > aMax)
+                    break;
+                if (a.sleeping && b.sleeping)
+                    continue;
+                if (!overlapsOther(a.bounds, b.bounds))
+                    continue;
+
+                if (a.sleeping)
+                    callback.pair(b, a);
+                else
+                    callback.pair(a, b);
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(sorted, 0, count, null);
+        count = 0;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    private void insertionSort() {
+        for (int i = 1; i < count; i++) {
+            PhysicsObject o = sorted[i];
+            double key = min(o.bounds);
+            int j = i - 1;
+            while (j >= 0 && min(sorted[j].bounds) > key) {
+                sorted[j + 1] = sorted[j];
+                j--;
+            }
+            sorted[j + 1] = o;
+        }
+    }
+
+    private double min(AABB b) {
+        return sortOnY ? b.minY : b.minX;
+    }
+
+    private double max(AABB b) {
+        return sortOnY ? b.maxY : b.maxX;
+    }
+
+    // overlap on the axis that is not sorted
+    private boolean overlapsOther(AABB a, AABB b) {
+        return sortOnY ? a.minX <= b.maxX && a.maxX >= b.minX
+                : a.minY <= b.maxY && a.maxY >= b.minY;
+    }
+}
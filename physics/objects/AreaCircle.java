@@ -1,13 +1,15 @@
 package physics.objects;
 
-import java.awt.Color;
 import java.util.ArrayList;
 
-import physics.process.BatchRenderer;
 import physics.structures.Manifold;
+import physics.structures.RenderFrame;
 import physics.structures.Vector2;
 
 public class AreaCircle extends PhysicsBall {
+    private static final int IDLE = 0xFF2C2C2C; // outline while nothing overlaps
+    private static final int TOUCHED = 0xFF808080;
+
     private ArrayList<PhysicsObject> collisions = new ArrayList<>();
 
     public AreaCircle(Vector2 pos, int radius) {
@@ -24,30 +26,25 @@ public class AreaCircle extends PhysicsBall {
     }
 
     @Override
-    public void draw(BatchRenderer renderer) {
-        drawDebug(renderer);
+    public void packRenderState(RenderFrame out) {
+        int color = collisions.isEmpty() ? IDLE : TOUCHED;
+        out.add(this, RenderFrame.CIRCLE, (byte) 0, radius, radius, color, color, color, color);
     }
 
     @Override
-    public void drawDebug(BatchRenderer renderer) {
-        if (collisions.isEmpty()) {
-            renderer.setFill(Color.darkGray.darker(), 255);
-        } else {
-            renderer.setFill(Color.gray, 255);
-        }
-        renderer.drawCircunference(pos, radius);
+    public int[] getOccuppiedChunks(int chunkDim) {
+        int[] result = new int[4];
+        getOccuppiedChunks(chunkDim, result);
+        return result;
     }
 
     @Override
-    public int[] getOccuppiedChunks(int chunkDim) {
+    public void getOccuppiedChunks(int chunkDim, int[] result) {
 
-        int[] result = new int[4];
         result[0] = (int) Math.floor((pos.x - radius) / chunkDim) - 1;
         result[1] = (int) Math.floor((pos.x + radius) / chunkDim) + 1;
         result[2] = (int) Math.floor((pos.y - radius) / chunkDim) - 1;
         result[3] = (int) Math.floor((pos.y + radius) / chunkDim) + 1;
-
-        return result;
     }
 
     @Override
@@ -73,12 +70,15 @@ public class AreaCircle extends PhysicsBall {
     }
 
     public void updateCollision(PhysicsObject o, Manifold m) {
-        if (m != null) {
-            if (!collisions.contains(o))
-                collisions.add(o);
-        } else {
-            if (collisions.contains(o))
-                collisions.remove(o);
+        // the parallel narrowphase may test one area on several workers
+        synchronized (collisions) {
+            if (m != null) {
+                if (!collisions.contains(o))
+                    collisions.add(o);
+            } else {
+                if (collisions.contains(o))
+                    collisions.remove(o);
+            }
         }
 
     }
@@ -1,13 +1,15 @@
 package physics.objects;
 
-import java.awt.Color;
 import java.util.ArrayList;
 
-import physics.process.BatchRenderer;
 import physics.structures.Manifold;
+import physics.structures.RenderFrame;
 import physics.structures.Vector2;
 
 public class AreaRect extends PhysicsRect {
+    private static final int IDLE = 0xFF2C2C2C; // outline while nothing overlaps
+    private static final int TOUCHED = 0xFF808080;
+
     private ArrayList<PhysicsObject> collisions = new ArrayList<>();
 
     public AreaRect(Vector2 pos, int width, int height) {
@@ -24,18 +26,9 @@ public class AreaRect extends PhysicsRect {
     }
 
     @Override
-    public void draw(BatchRenderer renderer) {
-        drawDebug(renderer);
-    }
-
-    @Override
-    public void drawDebug(BatchRenderer renderer) {
-        if (collisions.isEmpty()) {
-            renderer.setFill(Color.darkGray.darker(), 255);
-        } else {
-            renderer.setFill(Color.gray, 255);
-        }
-        renderer.drawRectOutline(pos, width, height);
+    public void packRenderState(RenderFrame out) {
+        int color = collisions.isEmpty() ? IDLE : TOUCHED;
+        out.add(this, RenderFrame.RECT, (byte) 0, width, height, color, color, color, color);
     }
 
     @Override
@@ -61,12 +54,15 @@ public class AreaRect extends PhysicsRect {
     }
 
     public void updateCollision(PhysicsObject o, Manifold m) {
-        if (m != null) {
-            if (!collisions.contains(o))
-                collisions.add(o);
-        } else {
-            if (collisions.contains(o))
-                collisions.remove(o);
+        // the parallel narrowphase may test one area on several workers
+        synchronized (collisions) {
+            if (m != null) {
+                if (!collisions.contains(o))
+                    collisions.add(o);
+            } else {
+                if (collisions.contains(o))
+                    collisions.remove(o);
+            }
         }
     }
 
@@ -1,12 +1,13 @@
 package physics.objects;
 
-import java.awt.Color;
-
 import physics.collisions.Collision;
-import physics.process.BatchRenderer;
+import physics.structures.AABB;
 import physics.structures.Manifold;
+import physics.structures.RenderFrame;
 
 public class PhysicsBall extends PhysicsObject {
+    private static final int UNSUPPORTED = 0xFF0000FF; // debug outline
+
     public int radius;
 
     public PhysicsBall(int radius, double elasticity, double mass, long id) {
@@ -22,47 +23,35 @@ public class PhysicsBall extends PhysicsObject {
     }
 
     @Override
-    public void draw(BatchRenderer renderer) {
-        renderer.setFill(displayColor, 255);
-        renderer.drawCircle(pos, radius);
-        renderer.setFill(displayColor.darker(), 255);
-        renderer.drawCircunference(pos, radius);
+    public void packRenderState(RenderFrame out) {
+        out.add(this, RenderFrame.CIRCLE, RenderFrame.FILLED, radius, radius, displayColor, displayColorDarker,
+                sleeping ? displayColorDarker : displayColor, supported ? displayColorDarker : UNSUPPORTED);
     }
 
     @Override
-    public void drawDebug(BatchRenderer renderer) {
-
-        if (sleeping) {
-            renderer.setFill(displayColor.darker(), 255);
-            renderer.drawCircle(pos, radius);
-        } else {
-            renderer.setFill(displayColor, 255);
-            renderer.drawCircle(pos, radius);
-        }
-        if (!supported) {
-            renderer.setFill(Color.blue, 255);
-            renderer.drawCircunference(pos, radius);
-        } else {
-            renderer.setFill(displayColor.darker(), 255);
-            renderer.drawCircunference(pos, radius);
-        }
+    public int[] getOccuppiedChunks(int chunkDim) {
+        int[] result = new int[4];
+        getOccuppiedChunks(chunkDim, result);
+        return result;
     }
 
     @Override
-    public int[] getOccuppiedChunks(int chunkDim) {
+    public void getOccuppiedChunks(int chunkDim, int[] result) {
 
         int up = (vel.y > VEL_EPS * 10) ? 1 : 0;
         int down = (vel.y < -VEL_EPS * 10) ? 1 : 0;
         int right = (vel.x > VEL_EPS * 10) ? 1 : 0;
         int left = (vel.x < -VEL_EPS * 10) ? 1 : 0;
 
-        int[] result = new int[4];
         result[0] = (int) Math.floor((pos.x - radius) / chunkDim) - left; // minx
         result[1] = (int) Math.floor((pos.x + radius) / chunkDim) + right; // maxx
         result[2] = (int) Math.floor((pos.y - radius) / chunkDim) - down; // miny
         result[3] = (int) Math.floor((pos.y + radius) / chunkDim) + up; // maxy
+    }
 
-        return result;
+    @Override
+    public void computeBounds(AABB out) {
+        out.set(pos.x - radius, pos.y - radius, pos.x + radius, pos.y + radius);
     }
 
     @Override
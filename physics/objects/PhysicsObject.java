@@ -1,14 +1,16 @@
 package physics.objects;
 
-import java.awt.Color;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 import physics.collisions.CollisionListener;
-import physics.process.BatchRenderer;
+import physics.process.PhysicsEvents;
+import physics.structures.AABB;
 import physics.structures.Contact;
 import physics.structures.Manifold;
+import physics.structures.RenderFrame;
 import physics.structures.Vector2;
 
 public abstract class PhysicsObject {
@@ -18,11 +20,19 @@ public abstract class PhysicsObject {
     public static int MAX_SLEEP_FRAMES = 50;
     public static double WAKE_VEL_THRESHOLD = 1.0;
     public static double WAKE_PENETRATION_THRESHOLD = 0.5;
+    public static int WAKE_CASCADE_EVENT_MIN = 32; // woken objects before a wake cascade is recorded
 
     public Vector2 pos = new Vector2(); // pos, for all objects, its center
+    public double prevX, prevY; // pos before the last step, for render interpolation
     public int cx, cy; // center chunkPos
     public Vector2 vel = new Vector2(); // velocity
     public int cMinCx, cMaxCx, cMinCy, cMaxCy; // chunks boundingBox for big objects
+    public int[] chunkSlots = new int[4]; // slot inside each occupied chunk, column major
+    public final AABB bounds = new AABB(); // world bounds, refreshed by the broadphase
+    public int broadphaseProxy = -1; // node handle for tree broadphases
+    public long solverColors = 0; // colors taken by this object's contacts, colored solver scratch
+    public PhysicsObject islandNext = null; // ring of the contact island, null when islands are off
+    public int islandNode = -1; // union-find node, island builder scratch
     public double mass;
     public double invMass = Double.NaN;
     public double elasticity;
@@ -39,8 +49,23 @@ public abstract class PhysicsObject {
 
     public List<Contact> contacts = new ArrayList<Contact>();
 
-    public Color displayColor = Color.white;
-    public Color displayColorDarker = displayColor.darker();
+    // world membership, flipped with CAS by the threads queueing commands and
+    // by the stepping thread draining them. QUEUED_ADD or QUEUED_REMOVE is the
+    // last add or remove queued, the bits above the flags count the ones not
+    // drained yet. an add or remove that would not change where the object
+    // ends up is not queued
+    public static final int QUEUED_ADD = 1;
+    public static final int IN_WORLD = 2;
+    public static final int QUEUED_REMOVE = 4;
+    public static final int REMOVING = 8; // drain scratch, dropped from the lists in one pass
+    private static final int PENDING_ONE = 16;
+    private volatile int worldFlags = 0;
+    private static final AtomicIntegerFieldUpdater<PhysicsObject> WORLD_FLAGS = AtomicIntegerFieldUpdater
+            .newUpdater(PhysicsObject.class, "worldFlags");
+
+    // ARGB, the renderer owns the mapping to its own color type
+    public int displayColor = 0xFFFFFFFF;
+    public int displayColorDarker = darker(displayColor);
     private CollisionListener collisionListener = null;
 
     PhysicsObject(long id) {
@@ -58,12 +83,21 @@ public abstract class PhysicsObject {
 
     public void randomizeColor() {
         Random r = new Random();
-        setDisplayColor(new Color(r.nextInt(255), r.nextInt(255), r.nextInt(255)));
+        int red = r.nextInt(255), green = r.nextInt(255), blue = r.nextInt(255);
+        setDisplayColor(0xFF000000 | red << 16 | green << 8 | blue);
     }
 
-    public void setDisplayColor(Color c) {
-        this.displayColor = c;
-        this.displayColorDarker = (c == null) ? Color.black : c.darker();
+    public void setDisplayColor(int argb) {
+        this.displayColor = argb;
+        this.displayColorDarker = darker(argb);
+    }
+
+    // same channels as java.awt.Color.darker, alpha kept
+    public static int darker(int argb) {
+        int r = (int) (((argb >> 16) & 0xFF) * 0.7);
+        int g = (int) (((argb >> 8) & 0xFF) * 0.7);
+        int b = (int) ((argb & 0xFF) * 0.7);
+        return (argb & 0xFF000000) | r << 16 | g << 8 | b;
     }
 
     public void notifyListener(PhysicsObject o, Manifold m) {
@@ -85,33 +119,102 @@ public abstract class PhysicsObject {
     }
 
     public void addContact(PhysicsObject o2, Vector2 normal, double penetration) {
+        addContact(o2, normal.x, normal.y, penetration);
+    }
+
+    public void addContact(PhysicsObject o2, double normalX, double normalY, double penetration) {
+        // a sleeping object's list is not cleared between steps, so refresh the
+        // entry for o2 instead of adding one every step an awake neighbour touches
+        if (sleeping) {
+            for (int i = 0, n = contacts.size(); i < n; i++) {
+                Contact c = contacts.get(i);
+                if (c.other == o2) {
+                    c.normal.set(normalX, normalY);
+                    c.penetration = penetration;
+                    return;
+                }
+            }
+        }
         Contact c1 = Contact.obtain();
         c1.other = o2;
-        c1.normal = normal; // from 1 to 2
+        c1.normal.set(normalX, normalY); // from 1 to 2
         c1.penetration = penetration;
         contacts.add(c1);
     }
 
+    // sets flag unless it or any of blockers is already set, true when this call set it
+    public boolean setWorldFlag(int flag, int blockers) {
+        int f;
+        do {
+            f = worldFlags;
+            if ((f & (flag | blockers)) != 0)
+                return false;
+        } while (!WORLD_FLAGS.compareAndSet(this, f, f | flag));
+        return true;
+    }
+
+    // counts a queued add or remove, false when the object already ends up in
+    // or out of the world once the queued ones are drained
+    public boolean queueMembership(boolean add) {
+        int f;
+        do {
+            f = worldFlags;
+            boolean endsIn = f >= PENDING_ONE ? (f & QUEUED_ADD) != 0 : (f & IN_WORLD) != 0;
+            if (endsIn == add)
+                return false;
+        } while (!WORLD_FLAGS.compareAndSet(this, f,
+                ((f & ~(QUEUED_ADD | QUEUED_REMOVE)) | (add ? QUEUED_ADD : QUEUED_REMOVE)) + PENDING_ONE));
+        return true;
+    }
+
+    // the stepping thread applied a queued add or remove, set IN_WORLD first
+    public void membershipDrained() {
+        int f, next;
+        do {
+            f = worldFlags;
+            next = f - PENDING_ONE;
+            if (next < PENDING_ONE)
+                next &= ~(QUEUED_ADD | QUEUED_REMOVE);
+        } while (!WORLD_FLAGS.compareAndSet(this, f, next));
+    }
+
+    public void clearWorldFlags(int flags) {
+        int f;
+        do {
+            f = worldFlags;
+        } while (!WORLD_FLAGS.compareAndSet(this, f, f & ~flags));
+    }
+
+    public boolean hasWorldFlag(int flag) {
+        return (worldFlags & flag) != 0;
+    }
+
     public void addForce(Vector2 force, double dt) {
-        if (vel.lengthSquared() < gravityTerminalVelocity)
-            vel.addLocal(force.scale(dt));
+        if (vel.lengthSquared() < gravityTerminalVelocity) {
+            vel.x += force.x * dt;
+            vel.y += force.y * dt;
+        }
     }
 
     public void integrateVelocity(double dt) {
         if (vel.lengthSquared() < VEL_EPS)
             vel.set(0, 0);
-        pos.addLocal(vel.scale(dt));
+        pos.x += vel.x * dt;
+        pos.y += vel.y * dt;
     }
 
     public void updateSupportState() {
         supported = false;
-        Vector2 normal = new Vector2();
-        for (Contact c : contacts) {
-            if (c.normal.y > 0) {
-                normal.addLocal(c.normal);
+        double nx = 0, ny = 0;
+        for (int i = 0, n = contacts.size(); i < n; i++) {
+            Vector2 cn = contacts.get(i).normal;
+            if (cn.y > 0) {
+                nx += cn.x;
+                ny += cn.y;
             }
         }
-        if (normal.normalize().y > SUPPORT_NORMAL_Y) {
+        double len = Math.sqrt(nx * nx + ny * ny);
+        if (len != 0 && ny / len > SUPPORT_NORMAL_Y) {
             supported = true;
         }
     }
@@ -119,6 +222,10 @@ public abstract class PhysicsObject {
     public void forceWake() {
         if (!sleeping || stationary)
             return;
+        if (islandNext != null) {
+            wakeIsland();
+            return;
+        }
         sleepFrames = 0;
         sleeping = false;
         forceWakeContacts();
@@ -127,6 +234,10 @@ public abstract class PhysicsObject {
     public void wake(double relVelAlongNormal, double penetration) {
         if (sleeping) {
             if (relVelAlongNormal > WAKE_VEL_THRESHOLD || penetration > WAKE_PENETRATION_THRESHOLD) {
+                if (islandNext != null) {
+                    wakeIsland();
+                    return;
+                }
                 sleeping = false;
                 sleepFrames = 0;
                 forceWakeContacts();
@@ -134,10 +245,56 @@ public abstract class PhysicsObject {
         }
     }
 
+    // islands sleep as a whole, so they also wake as a whole
+    public void wakeIsland() {
+        wakeIslandCounted();
+    }
+
+    private int wakeIslandCounted() {
+        int woken = 0;
+        PhysicsObject o = this;
+        do {
+            if (o.sleeping)
+                woken++;
+            o.sleeping = false;
+            o.sleepFrames = 0;
+            o = o.islandNext;
+        } while (o != null && o != this);
+        return woken;
+    }
+
     public void forceWakeContacts() {
-        for (Contact c : contacts) {
-            c.other.forceWake(); // wake contacted objects
+        if (!PhysicsEvents.wakeCascadeEnabled()) {
+            wakeContacts();
+            return;
+        }
+        PhysicsEvents.WakeCascade event = new PhysicsEvents.WakeCascade();
+        event.begin();
+        int woken = wakeContacts();
+        if (woken >= WAKE_CASCADE_EVENT_MIN && event.shouldCommit()) {
+            event.woken = woken;
+            event.objectId = id;
+            event.commit();
+        }
+    }
+
+    // forceWake through the contacts, counting everything that woke
+    private int wakeContacts() {
+        int woken = 0;
+        for (int i = 0; i < contacts.size(); i++) {
+            woken += contacts.get(i).other.forceWakeCounted(); // wake contacted objects
         }
+        return woken;
+    }
+
+    private int forceWakeCounted() {
+        if (!sleeping || stationary)
+            return 0;
+        if (islandNext != null)
+            return wakeIslandCounted();
+        sleepFrames = 0;
+        sleeping = false;
+        return 1 + wakeContacts();
     }
 
     public void updateSleepState() {
@@ -157,12 +314,19 @@ public abstract class PhysicsObject {
 
     }
 
-    public abstract void draw(BatchRenderer renderer);
-
-    public abstract void drawDebug(BatchRenderer renderer);
+    // append this object's render state to a frame, called after a step
+    public abstract void packRenderState(RenderFrame out);
 
     public abstract int[] getOccuppiedChunks(int chunkDim);
 
+    // non allocating variant, out = [minCx, maxCx, minCy, maxCy]
+    public void getOccuppiedChunks(int chunkDim, int[] out) {
+        int[] result = getOccuppiedChunks(chunkDim);
+        System.arraycopy(result, 0, out, 0, 4);
+    }
+
+    public abstract void computeBounds(AABB out);
+
     public abstract Manifold collide(PhysicsObject other);
 
     // hooks for double dispatch
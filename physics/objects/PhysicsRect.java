@@ -1,12 +1,13 @@
 package physics.objects;
 
-import java.awt.Color;
-
 import physics.collisions.Collision;
-import physics.process.BatchRenderer;
+import physics.structures.AABB;
 import physics.structures.Manifold;
+import physics.structures.RenderFrame;
 
 public class PhysicsRect extends PhysicsObject {
+    private static final int UNSUPPORTED = 0xFF00FF00; // debug outline
+
     public int width;
     public int height;
 
@@ -26,30 +27,9 @@ public class PhysicsRect extends PhysicsObject {
     }
 
     @Override
-    public void draw(BatchRenderer renderer) {
-        renderer.setFill(displayColor, 255);
-        renderer.drawRect(pos, width, height);
-        renderer.setFill(displayColor.darker(), 255);
-        renderer.drawRectOutline(pos, width, height);
-    }
-
-    @Override
-    public void drawDebug(BatchRenderer renderer) {
-        if (!sleeping) {
-            renderer.setFill(displayColor, 255);
-        } else {
-            renderer.setFill(displayColor.darker(), 255);
-        }
-
-        renderer.drawRect(pos, width, height);
-
-        if (!supported) {
-            renderer.setFill(Color.green, 255);
-        } else {
-            renderer.setFill(displayColor.darker(), 255);
-        }
-
-        renderer.drawRectOutline(pos, width, height);
+    public void packRenderState(RenderFrame out) {
+        out.add(this, RenderFrame.RECT, RenderFrame.FILLED, width, height, displayColor, displayColorDarker,
+                sleeping ? displayColorDarker : displayColor, supported ? displayColorDarker : UNSUPPORTED);
     }
 
     public int[] getCorners() {
@@ -67,21 +47,28 @@ public class PhysicsRect extends PhysicsObject {
     @Override
     public int[] getOccuppiedChunks(int chunkDim) {
         int[] result = new int[4];
-        int[] corners = getCorners();
+        getOccuppiedChunks(chunkDim, result);
+        return result;
+    }
 
-        // corners = [left, top, right, bottom]
-        int left = corners[0];
-        int top = corners[1];
-        int right = corners[2];
-        int bottom = corners[3];
+    @Override
+    public void getOccuppiedChunks(int chunkDim, int[] result) {
+        // same corners as getCorners, [left, top, right, bottom]
+        int left = (int) (pos.x - width / 2);
+        int top = (int) (pos.y - height / 2);
+        int right = (int) (pos.x + width / 2);
+        int bottom = (int) (pos.y + height / 2);
 
         // minCx, maxCx, minCy, maxCy
         result[0] = (int) Math.floor((double) left / chunkDim) - 0;
         result[1] = (int) Math.floor((double) right / chunkDim) + 0;
         result[2] = (int) Math.floor((double) top / chunkDim) - 0;
         result[3] = (int) Math.floor((double) bottom / chunkDim) + 0;
+    }
 
-        return result;
+    @Override
+    public void computeBounds(AABB out) {
+        out.set(pos.x - width / 2, pos.y - height / 2, pos.x + width / 2, pos.y + height / 2);
     }
 
     @Override
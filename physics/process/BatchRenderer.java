@@ -8,6 +8,7 @@ import java.awt.geom.Ellipse2D;
 import java.awt.geom.Path2D;
 import java.awt.geom.Rectangle2D;
 
+import physics.structures.RenderFrame;
 import physics.structures.Vector2;
 
 public class BatchRenderer {
@@ -18,6 +19,13 @@ public class BatchRenderer {
     private final Path2D.Float polygon = new Path2D.Float();
     private final Rectangle2D.Float rect = new Rectangle2D.Float();
 
+    // Color instances by ARGB value, open addressing. frames carry plain ints,
+    // so drawing them looks colors up here instead of creating them
+    public static int MAX_CACHED_COLORS = 4096;
+    private int[] colorKeys = new int[256];
+    private Color[] colorValues = new Color[256];
+    private int cachedColors = 0;
+
     public void setDisplay(Display d) {
         this.display = d;
     }
@@ -27,21 +35,71 @@ public class BatchRenderer {
     }
 
     public void setFill(Color c, int alpha) {
+        setFill(c.getRGB(), alpha);
+    }
+
+    // rgb as in Color.getRGB, its alpha is replaced
+    public void setFill(int rgb, int alpha) {
         if (g == null)
             return;
         int a = Math.max(0, Math.min(255, alpha));
-        Color color = new Color(c.getRed(), c.getGreen(), c.getBlue(), a);
         g.setComposite(AlphaComposite.SrcOver);
-        g.setColor(color);
+        g.setColor(color((a << 24) | (rgb & 0xFFFFFF)));
+    }
+
+    // draws every object of a frame, view is [minCx, maxCx, minCy, maxCy] or
+    // null to draw everything
+    public void drawFrame(RenderFrame f, boolean debug, int[] view) {
+        drawFrame(f, debug, view, 1.0);
+    }
+
+    // alpha 0 draws the previous positions, 1 the packed ones
+    public void drawFrame(RenderFrame f, boolean debug, int[] view, double alpha) {
+        if (g == null)
+            return;
+
+        int[] fills = debug ? f.debugFill : f.fill;
+        int[] outlines = debug ? f.debugOutline : f.outline;
+        int[] chunks = f.chunks;
+        for (int i = 0, n = f.size(); i < n; i++) {
+            if (view != null) {
+                int c = i << 2;
+                if (chunks[c + 1] < view[0] || chunks[c] > view[1] || chunks[c + 3] < view[2]
+                        || chunks[c + 2] > view[3])
+                    continue;
+            }
+            boolean filled = (f.flags[i] & RenderFrame.FILLED) != 0;
+            double x = f.prevX[i] + (f.x[i] - f.prevX[i]) * alpha;
+            double y = f.prevY[i] + (f.y[i] - f.prevY[i]) * alpha;
+            if (f.shape[i] == RenderFrame.CIRCLE) {
+                if (filled) {
+                    setFill(fills[i], 255);
+                    drawCircle(x, y, f.w[i]);
+                }
+                setFill(outlines[i], 255);
+                drawCircunference(x, y, f.w[i]);
+            } else {
+                if (filled) {
+                    setFill(fills[i], 255);
+                    drawRect(x, y, f.w[i], f.h[i]);
+                }
+                setFill(outlines[i], 255);
+                drawRectOutline(x, y, f.w[i], f.h[i]);
+            }
+        }
     }
 
     public void drawCircle(Vector2 pos, int radius) {
+        drawCircle(pos.x, pos.y, radius);
+    }
+
+    public void drawCircle(double x, double y, double radius) {
         if (g == null)
             return;
 
         double scale = display.scale;
-        double xi = ((pos.x + display.offset.x) - radius) * scale;
-        double yi = ((pos.y + display.offset.y) - radius) * scale;
+        double xi = ((x + display.offset.x) - radius) * scale;
+        double yi = ((y + display.offset.y) - radius) * scale;
         double diam = radius * 2 * scale;
 
         circle.setFrame(xi, yi, diam, diam);
@@ -51,12 +109,16 @@ public class BatchRenderer {
     }
 
     public void drawCircunference(Vector2 pos, int radius) {
+        drawCircunference(pos.x, pos.y, radius);
+    }
+
+    public void drawCircunference(double x, double y, double radius) {
         if (g == null)
             return;
 
         double scale = display.scale;
-        double xi = ((pos.x + display.offset.x) - radius) * scale;
-        double yi = ((pos.y + display.offset.y) - radius) * scale;
+        double xi = ((x + display.offset.x) - radius) * scale;
+        double yi = ((y + display.offset.y) - radius) * scale;
         double diam = radius * 2 * scale;
 
         circle.setFrame(xi, yi, diam, diam);
@@ -66,26 +128,34 @@ public class BatchRenderer {
     }
 
     public void drawRect(Vector2 center, double w, double h) {
+        drawRect(center.x, center.y, w, h);
+    }
+
+    public void drawRect(double x, double y, double w, double h) {
         if (g == null)
             return;
 
         double scale = display.scale;
 
-        double xi = (center.x - w / 2 + display.offset.x) * scale;
-        double yi = (center.y - h / 2 + display.offset.y) * scale;
+        double xi = (x - w / 2 + display.offset.x) * scale;
+        double yi = (y - h / 2 + display.offset.y) * scale;
 
         rect.setFrame(xi, yi, w * scale, h * scale);
         g.fill(rect);
     }
 
     public void drawRectOutline(Vector2 center, double w, double h) {
+        drawRectOutline(center.x, center.y, w, h);
+    }
+
+    public void drawRectOutline(double x, double y, double w, double h) {
         if (g == null)
             return;
 
         double scale = display.scale;
 
-        double xi = (center.x - w / 2 + display.offset.x) * scale;
-        double yi = (center.y - h / 2 + display.offset.y) * scale;
+        double xi = (x - w / 2 + display.offset.x) * scale;
+        double yi = (y - h / 2 + display.offset.y) * scale;
 
         rect.setFrame(xi, yi, w * scale, h * scale);
         g.draw(rect);
@@ -176,4 +246,51 @@ public class BatchRenderer {
         this.g = null;
     }
 
+    private Color color(int argb) {
+        int mask = colorKeys.length - 1;
+        int i = colorSlot(argb) & mask;
+        Color c;
+        while ((c = colorValues[i]) != null) {
+            if (colorKeys[i] == argb)
+                return c;
+            i = (i + 1) & mask;
+        }
+        if (cachedColors >= MAX_CACHED_COLORS) {
+            java.util.Arrays.fill(colorValues, null); // random colors piling up, start over
+            cachedColors = 0;
+        } else if (cachedColors * 2 >= colorKeys.length) {
+            rehashColors(colorKeys.length << 1);
+        }
+        c = new Color(argb, true);
+        putColor(argb, c);
+        return c;
+    }
+
+    private void putColor(int argb, Color c) {
+        int mask = colorKeys.length - 1;
+        int i = colorSlot(argb) & mask;
+        while (colorValues[i] != null)
+            i = (i + 1) & mask;
+        colorKeys[i] = argb;
+        colorValues[i] = c;
+        cachedColors++;
+    }
+
+    private static int colorSlot(int argb) {
+        int h = argb * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private void rehashColors(int capacity) {
+        int[] oldKeys = colorKeys;
+        Color[] oldValues = colorValues;
+        colorKeys = new int[capacity];
+        colorValues = new Color[capacity];
+        cachedColors = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null)
+                putColor(oldKeys[i], oldValues[i]);
+        }
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,168 @@
+package physics.process;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import physics.objects.PhysicsObject;
+import physics.structures.Manifold;
+import physics.structures.Vector2;
+
+// parallel velocity solver. manifolds are greedily colored so no two of one
+// color share a moving object, then each color is solved as a parallel batch
+// with a join between colors. stationary objects are pinned and never written,
+// so they do not conflict. contacts that find no free color among the first 64
+// go to a last batch solved serially
+class ColoredSolver {
+
+    static final int MAX_COLORS = 64;
+    static int MIN_CONTACTS_PER_TASK = 128;
+
+    private final PhysicsUpdater updater;
+    private final ForkJoinPool pool;
+    private final Vector2 wakeTmp = new Vector2();
+
+    // per worker scratch vectors for solveContact
+    private final ThreadLocal<Vector2[]> scratch = ThreadLocal
+            .withInitial(() -> new Vector2[] { new Vector2(), new Vector2(), new Vector2() });
+
+    private Manifold[] sorted = new Manifold[1024]; // manifolds grouped by color
+    private int[] colors = new int[1024]; // color of each frame manifold
+    private final int[] colorStart = new int[MAX_COLORS + 2];
+    private int colorCount = 0; // colors in use, overflow batch included
+
+    ColoredSolver(PhysicsUpdater updater, int threads) {
+        this.updater = updater;
+        this.pool = new ForkJoinPool(Math.max(1, threads));
+    }
+
+    int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    int getColorCount() {
+        return colorCount;
+    }
+
+    void shutdown() {
+        pool.shutdown();
+    }
+
+    // returns the passes run, fewer than iterations once the updater calls
+    // a pass converged
+    int solve(List<Manifold> manifolds, int iterations) {
+        int n = manifolds.size();
+        if (n == 0)
+            return 0;
+        color(manifolds);
+
+        int it = 0;
+        while (it < iterations) {
+            it++;
+            // waking touches the neighbours' contacts, keep it off the workers
+            for (int i = 0; i < n; i++)
+                updater.wakeContact(manifolds.get(i), wakeTmp);
+
+            double largest = 0;
+            for (int c = 0; c < colorCount; c++) {
+                int from = colorStart[c];
+                int to = colorStart[c + 1];
+                if (c == MAX_COLORS || to - from < MIN_CONTACTS_PER_TASK * 2) {
+                    largest = Math.max(largest, solveRange(from, to));
+                } else {
+                    BatchTask task = new BatchTask(from, to);
+                    pool.invoke(task);
+                    largest = Math.max(largest, task.largest);
+                }
+            }
+            if (updater.converged(it, largest))
+                break;
+        }
+
+        java.util.Arrays.fill(sorted, 0, n, null);
+        return it;
+    }
+
+    // greedy coloring in frame order, then a counting sort into sorted
+    private void color(List<Manifold> manifolds) {
+        int n = manifolds.size();
+        if (sorted.length < n) {
+            sorted = new Manifold[Math.max(n, sorted.length << 1)];
+            colors = new int[sorted.length];
+        }
+
+        for (int i = 0; i < n; i++) {
+            Manifold m = manifolds.get(i);
+            m.o1.solverColors = 0;
+            m.o2.solverColors = 0;
+        }
+
+        int[] counts = colorStart; // reused, turned into offsets below
+        java.util.Arrays.fill(counts, 0);
+        for (int i = 0; i < n; i++) {
+            Manifold m = manifolds.get(i);
+            PhysicsObject a = m.o1, b = m.o2;
+            long used = 0;
+            if (!a.stationary)
+                used |= a.solverColors;
+            if (!b.stationary)
+                used |= b.solverColors;
+            int c = (used == -1L) ? MAX_COLORS : Long.numberOfTrailingZeros(~used);
+            if (c < MAX_COLORS) {
+                long bit = 1L << c;
+                if (!a.stationary)
+                    a.solverColors |= bit;
+                if (!b.stationary)
+                    b.solverColors |= bit;
+            }
+            colors[i] = c;
+            counts[c + 1]++;
+        }
+
+        colorCount = 0;
+        for (int c = 0; c <= MAX_COLORS; c++) {
+            if (counts[c + 1] > 0)
+                colorCount = c + 1;
+            counts[c + 1] += counts[c];
+        }
+        // colorStart[c] now is the first slot of color c, fill and shift back
+        for (int i = 0; i < n; i++) {
+            sorted[colorStart[colors[i]]++] = manifolds.get(i);
+        }
+        for (int c = MAX_COLORS + 1; c > 0; c--)
+            colorStart[c] = colorStart[c - 1];
+        colorStart[0] = 0;
+    }
+
+    // largest relative velocity change in the range
+    private double solveRange(int from, int to) {
+        Vector2[] t = scratch.get();
+        double largest = 0;
+        for (int i = from; i < to; i++)
+            largest = Math.max(largest, updater.solveContact(sorted[i], true, t[0], t[1], t[2]));
+        return largest;
+    }
+
+    @SuppressWarnings("serial") // fork-join tasks are never serialized
+    private class BatchTask extends RecursiveAction {
+        private final int from, to;
+        double largest = 0; // read after the join
+
+        BatchTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= MIN_CONTACTS_PER_TASK) {
+                largest = solveRange(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            BatchTask left = new BatchTask(from, mid), right = new BatchTask(mid, to);
+            invokeAll(left, right);
+            largest = Math.max(left.largest, right.largest);
+        }
+    }
+}
@@ -70,6 +70,20 @@ public class Display {
         return borders;
     }
 
+    // non allocating variant, fills and returns out
+    public int[] getMainObjectViewDistanceBorders(int[] out) {
+        PhysicsObject o = mainObject;
+        if (o == null) {
+            java.util.Arrays.fill(out, 0, 4, 0);
+            return out;
+        }
+        out[0] = o.cx - renderDistance;
+        out[1] = o.cx + renderDistance;
+        out[2] = o.cy - renderDistance;
+        out[3] = o.cy + renderDistance;
+        return out;
+    }
+
     public int[] getMainObjectViewDistanceBorders(int distance) {
         if (mainObject == null) {
             int[] nul = { 0, 0, 0, 0 };
@@ -0,0 +1,267 @@
+package physics.process;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import physics.objects.PhysicsObject;
+import physics.structures.Manifold;
+import physics.structures.Vector2;
+
+// contact islands rebuilt every step with union-find over the frame manifolds
+// stationary objects never join two islands. each island is solved on its own
+// and goes to sleep or wakes up as a whole, members are linked in a ring
+// through PhysicsObject.islandNext so a sleeping island wakes without a graph
+// walk. sleeping islands are not rebuilt and cost nothing until woken
+class IslandSolver {
+
+    static int MIN_CONTACTS_PER_TASK = 256;
+
+    private final PhysicsUpdater updater;
+    private ForkJoinPool pool = null;
+
+    private final Vector2 tmpA = new Vector2();
+    private final Vector2 tmpB = new Vector2();
+    private final Vector2 tmpC = new Vector2();
+    private final ThreadLocal<Vector2[]> scratch = ThreadLocal
+            .withInitial(() -> new Vector2[] { new Vector2(), new Vector2(), new Vector2() });
+
+    // union-find over the awake objects of this step
+    private PhysicsObject[] nodes = new PhysicsObject[1024];
+    private int[] parent = new int[1024];
+    private int[] islandOfNode = new int[1024];
+    private int nodeCount = 0;
+
+    // objects and manifolds grouped by island
+    private PhysicsObject[] bodies = new PhysicsObject[1024];
+    private int[] bodyStart = new int[1025];
+    private Manifold[] contacts = new Manifold[1024];
+    private int[] islandOfContact = new int[1024];
+    private int[] contactStart = new int[1025];
+    private int islandCount = 0;
+    private int sleptIslands = 0;
+
+    IslandSolver(PhysicsUpdater updater) {
+        this.updater = updater;
+    }
+
+    int getIslandCount() {
+        return islandCount;
+    }
+
+    // islands that went to sleep at the end of the last step
+    int getSleptIslandCount() {
+        return sleptIslands;
+    }
+
+    void build(List<PhysicsObject> dynamics, List<Manifold> manifolds) {
+        int manifoldCount = manifolds.size();
+
+        // an awake object touching a sleeping island joins it, so that island
+        // wakes before the numbering below
+        for (int i = 0; i < manifoldCount; i++) {
+            Manifold m = manifolds.get(i);
+            if (m.o1.sleeping && !m.o1.stationary)
+                m.o1.wakeIsland();
+            if (m.o2.sleeping && !m.o2.stationary)
+                m.o2.wakeIsland();
+        }
+
+        nodeCount = 0;
+        for (int i = 0, n = dynamics.size(); i < n; i++) {
+            PhysicsObject o = dynamics.get(i);
+            if (o.sleeping || o.stationary) {
+                o.islandNode = -1;
+                continue;
+            }
+            if (nodeCount == nodes.length)
+                growNodes();
+            o.islandNode = nodeCount;
+            nodes[nodeCount] = o;
+            parent[nodeCount] = nodeCount;
+            nodeCount++;
+        }
+
+        for (int i = 0; i < manifoldCount; i++) {
+            Manifold m = manifolds.get(i);
+            if (!m.o1.stationary && !m.o2.stationary)
+                union(m.o1.islandNode, m.o2.islandNode);
+        }
+
+        // number islands by first member, then counting sort objects
+        islandCount = 0;
+        for (int i = 0; i < nodeCount; i++) {
+            int root = find(i);
+            if (root == i)
+                islandOfNode[i] = islandCount++;
+        }
+        if (bodyStart.length < islandCount + 1) {
+            bodyStart = new int[islandCount * 2 + 1];
+            contactStart = new int[islandCount * 2 + 1];
+        }
+        Arrays.fill(bodyStart, 0, islandCount + 1, 0);
+        for (int i = 0; i < nodeCount; i++) {
+            islandOfNode[i] = islandOfNode[find(i)];
+            bodyStart[islandOfNode[i] + 1]++;
+        }
+        for (int k = 0; k < islandCount; k++)
+            bodyStart[k + 1] += bodyStart[k];
+        if (bodies.length < nodeCount)
+            bodies = new PhysicsObject[nodes.length];
+        for (int i = 0; i < nodeCount; i++)
+            bodies[bodyStart[islandOfNode[i]]++] = nodes[i];
+        shiftBack(bodyStart, islandCount);
+
+        // manifolds, in frame order inside each island
+        if (contacts.length < manifoldCount) {
+            contacts = new Manifold[Math.max(manifoldCount, contacts.length << 1)];
+            islandOfContact = new int[contacts.length];
+        }
+        Arrays.fill(contactStart, 0, islandCount + 1, 0);
+        for (int i = 0; i < manifoldCount; i++) {
+            Manifold m = manifolds.get(i);
+            PhysicsObject d = m.o1.stationary ? m.o2 : m.o1;
+            islandOfContact[i] = islandOfNode[d.islandNode];
+            contactStart[islandOfContact[i] + 1]++;
+        }
+        for (int k = 0; k < islandCount; k++)
+            contactStart[k + 1] += contactStart[k];
+        for (int i = 0; i < manifoldCount; i++)
+            contacts[contactStart[islandOfContact[i]]++] = manifolds.get(i);
+        shiftBack(contactStart, islandCount);
+
+        // rings
+        for (int k = 0; k < islandCount; k++) {
+            int from = bodyStart[k], to = bodyStart[k + 1];
+            for (int i = from; i < to - 1; i++)
+                bodies[i].islandNext = bodies[i + 1];
+            bodies[to - 1].islandNext = bodies[from];
+        }
+    }
+
+    // every island runs its own iterations, one island is never split.
+    // returns the most passes any island ran
+    int solve(int iterations, boolean parallel, int threads) {
+        if (islandCount == 0)
+            return 0;
+        if (parallel && threads > 1) {
+            if (pool == null || pool.getParallelism() != threads) {
+                shutdown();
+                pool = new ForkJoinPool(threads);
+            }
+            IslandTask task = new IslandTask(0, islandCount, iterations);
+            pool.invoke(task);
+            return task.passes;
+        }
+        return solveIslands(0, islandCount, iterations, false, tmpA, tmpB, tmpC);
+    }
+
+    // an island sleeps once every member has been calm long enough
+    void updateSleep() {
+        sleptIslands = 0;
+        for (int k = 0; k < islandCount; k++) {
+            int from = bodyStart[k], to = bodyStart[k + 1];
+            boolean ready = true;
+            for (int i = from; i < to && ready; i++) {
+                PhysicsObject o = bodies[i];
+                ready = !o.forceAwake && o.sleepFrames >= PhysicsObject.MAX_SLEEP_FRAMES;
+            }
+            for (int i = from; i < to; i++)
+                bodies[i].sleeping = ready;
+            if (ready)
+                sleptIslands++;
+        }
+    }
+
+    // drops references to the last step's objects
+    void clear() {
+        Arrays.fill(nodes, 0, nodeCount, null);
+        Arrays.fill(bodies, 0, nodeCount, null);
+        Arrays.fill(contacts, 0, contactStart[islandCount], null);
+    }
+
+    void shutdown() {
+        if (pool != null)
+            pool.shutdown();
+        pool = null;
+    }
+
+    // members are all awake here, so the solve skips the wake checks.
+    // stationary objects are pinned when islands run in parallel
+    private int solveIslands(int fromIsland, int toIsland, int iterations, boolean pinStatics, Vector2 a,
+            Vector2 b, Vector2 c) {
+        int most = 0;
+        for (int k = fromIsland; k < toIsland; k++) {
+            int from = contactStart[k], to = contactStart[k + 1];
+            int it = 0;
+            while (it < iterations) {
+                it++;
+                double largest = 0;
+                for (int i = from; i < to; i++)
+                    largest = Math.max(largest, updater.solveContact(contacts[i], pinStatics, a, b, c));
+                if (updater.converged(it, largest))
+                    break;
+            }
+            most = Math.max(most, it);
+        }
+        return most;
+    }
+
+    private int find(int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]]; // path halving
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private void union(int a, int b) {
+        int ra = find(a), rb = find(b);
+        if (ra == rb)
+            return;
+        // lower index stays root, keeps island numbering in object order
+        if (ra < rb)
+            parent[rb] = ra;
+        else
+            parent[ra] = rb;
+    }
+
+    private static void shiftBack(int[] start, int count) {
+        for (int k = count; k > 0; k--)
+            start[k] = start[k - 1];
+        start[0] = 0;
+    }
+
+    private void growNodes() {
+        int cap = nodes.length << 1;
+        nodes = Arrays.copyOf(nodes, cap);
+        parent = Arrays.copyOf(parent, cap);
+        islandOfNode = Arrays.copyOf(islandOfNode, cap);
+    }
+
+    @SuppressWarnings("serial") // fork-join tasks are never serialized
+    private class IslandTask extends RecursiveAction {
+        private final int from, to, iterations;
+        int passes = 0; // read after the join
+
+        IslandTask(int from, int to, int iterations) {
+            this.from = from;
+            this.to = to;
+            this.iterations = iterations;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1 || contactStart[to] - contactStart[from] <= MIN_CONTACTS_PER_TASK) {
+                Vector2[] t = scratch.get();
+                passes = solveIslands(from, to, iterations, true, t[0], t[1], t[2]);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            IslandTask left = new IslandTask(from, mid, iterations), right = new IslandTask(mid, to, iterations);
+            invokeAll(left, right);
+            passes = Math.max(left.passes, right.passes);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package physics.process;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import physics.process.PhysicsMetrics.Phase;
+
+// PhysicsMetrics published as a JMX MBean, physics:type=PhysicsWorld,name=...
+// times are exponential moving averages so a dashboard polling every few
+// seconds still sees the steps in between, the slowest step is kept apart.
+// the updater writes, the JMX thread reads the volatile copies
+public class JmxPhysicsMetrics implements PhysicsMetrics, JmxPhysicsMetricsMBean {
+
+    public static double SMOOTHING = 0.05; // weight of the newest step
+
+    private final double[] phaseAverage = new double[StepStats.PHASES];
+    private double stepAverage = 0;
+    private boolean first = true;
+
+    private volatile long stepCount;
+    private volatile double stepNanos;
+    private volatile long maxStepNanos;
+    private volatile double chunkUpdate, contactClear, integrate, pairsAndNarrowphase, positionCorrection,
+            velocitySolve, sleepUpdate;
+    private volatile int bodies, awakeBodies, statics, candidatePairs, manifolds, solverIterations, positionIterations,
+            manifoldPool, contactPool, chunks;
+
+    private ObjectName registeredAs = null;
+
+    // registers on the platform MBean server
+    public JmxPhysicsMetrics register(String name) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName on = new ObjectName("physics:type=PhysicsWorld,name=" + ObjectName.quote(name));
+            server.registerMBean(this, on);
+            registeredAs = on;
+            return this;
+        } catch (JMException e) {
+            throw new IllegalStateException("could not register physics metrics as " + name, e);
+        }
+    }
+
+    public void unregister() {
+        if (registeredAs == null)
+            return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredAs);
+        } catch (JMException e) {
+            throw new IllegalStateException("could not unregister " + registeredAs, e);
+        }
+        registeredAs = null;
+    }
+
+    @Override
+    public void stepCompleted(StepStats s) {
+        double a = first ? 1.0 : SMOOTHING;
+        first = false;
+        for (int i = 0; i < StepStats.PHASES; i++)
+            phaseAverage[i] += (s.phaseNanos[i] - phaseAverage[i]) * a;
+        stepAverage += (s.stepNanos - stepAverage) * a;
+
+        stepCount = s.step;
+        stepNanos = stepAverage;
+        if (s.stepNanos > maxStepNanos)
+            maxStepNanos = s.stepNanos;
+        chunkUpdate = phaseAverage[Phase.CHUNK_UPDATE.ordinal()];
+        contactClear = phaseAverage[Phase.CONTACT_CLEAR.ordinal()];
+        integrate = phaseAverage[Phase.INTEGRATE.ordinal()];
+        pairsAndNarrowphase = phaseAverage[Phase.PAIRS_AND_NARROWPHASE.ordinal()];
+        positionCorrection = phaseAverage[Phase.POSITION_CORRECTION.ordinal()];
+        velocitySolve = phaseAverage[Phase.VELOCITY_SOLVE.ordinal()];
+        sleepUpdate = phaseAverage[Phase.SLEEP_UPDATE.ordinal()];
+
+        bodies = s.bodies;
+        awakeBodies = s.awakeBodies;
+        statics = s.statics;
+        candidatePairs = s.candidatePairs;
+        manifolds = s.manifolds;
+        solverIterations = s.solverIterations;
+        positionIterations = s.positionIterations;
+        manifoldPool = s.manifoldPool;
+        contactPool = s.contactPool;
+        chunks = s.chunks;
+    }
+
+    @Override
+    public long getStepCount() {
+        return stepCount;
+    }
+
+    @Override
+    public double getStepNanos() {
+        return stepNanos;
+    }
+
+    @Override
+    public long getMaxStepNanos() {
+        return maxStepNanos;
+    }
+
+    @Override
+    public void resetMaxStepNanos() {
+        maxStepNanos = 0;
+    }
+
+    @Override
+    public double getChunkUpdateNanos() {
+        return chunkUpdate;
+    }
+
+    @Override
+    public double getContactClearNanos() {
+        return contactClear;
+    }
+
+    @Override
+    public double getIntegrateNanos() {
+        return integrate;
+    }
+
+    @Override
+    public double getPairsAndNarrowphaseNanos() {
+        return pairsAndNarrowphase;
+    }
+
+    @Override
+    public double getPositionCorrectionNanos() {
+        return positionCorrection;
+    }
+
+    @Override
+    public double getVelocitySolveNanos() {
+        return velocitySolve;
+    }
+
+    @Override
+    public double getSleepUpdateNanos() {
+        return sleepUpdate;
+    }
+
+    @Override
+    public int getBodies() {
+        return bodies;
+    }
+
+    @Override
+    public int getAwakeBodies() {
+        return awakeBodies;
+    }
+
+    @Override
+    public int getStatics() {
+        return statics;
+    }
+
+    @Override
+    public int getCandidatePairs() {
+        return candidatePairs;
+    }
+
+    @Override
+    public int getManifolds() {
+        return manifolds;
+    }
+
+    @Override
+    public int getSolverIterations() {
+        return solverIterations;
+    }
+
+    @Override
+    public int getPositionIterations() {
+        return positionIterations;
+    }
+
+    @Override
+    public int getManifoldPoolSize() {
+        return manifoldPool;
+    }
+
+    @Override
+    public int getContactPoolSize() {
+        return contactPool;
+    }
+
+    @Override
+    public int getChunks() {
+        return chunks;
+    }
+}
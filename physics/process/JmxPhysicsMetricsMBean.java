@@ -0,0 +1,48 @@
+package physics.process;
+
+// attributes of JmxPhysicsMetrics, times are nanoseconds averaged over the
+// last steps, counters are from the newest step
+public interface JmxPhysicsMetricsMBean {
+
+    long getStepCount();
+
+    double getStepNanos();
+
+    long getMaxStepNanos(); // slowest step since resetMaxStepNanos
+
+    void resetMaxStepNanos();
+
+    double getChunkUpdateNanos();
+
+    double getContactClearNanos();
+
+    double getIntegrateNanos();
+
+    double getPairsAndNarrowphaseNanos();
+
+    double getPositionCorrectionNanos();
+
+    double getVelocitySolveNanos();
+
+    double getSleepUpdateNanos();
+
+    int getBodies();
+
+    int getAwakeBodies();
+
+    int getStatics();
+
+    int getCandidatePairs();
+
+    int getManifolds();
+
+    int getSolverIterations();
+
+    int getPositionIterations();
+
+    int getManifoldPoolSize();
+
+    int getContactPoolSize();
+
+    int getChunks();
+}
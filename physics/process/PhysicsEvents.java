@@ -0,0 +1,128 @@
+package physics.process;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+// Java Flight Recorder events, switched on and off by the recording's
+// settings like the built in ones (physics.Step#threshold=0 ms records every
+// step). the JIT does not drop an unused event object inside fixedUpdate or
+// the recursive wake, so sites first check the flags below, refreshed
+// whenever a recording starts or stops. with no recording running an event
+// site is one volatile read
+public final class PhysicsEvents {
+
+    private static volatile boolean step, catchUp, wakeCascade, batch;
+
+    static {
+        FlightRecorder.addListener(new FlightRecorderListener() {
+            @Override
+            public void recorderInitialized(FlightRecorder recorder) {
+                refresh();
+            }
+
+            @Override
+            public void recordingStateChanged(Recording recording) {
+                refresh();
+            }
+        });
+    }
+
+    private PhysicsEvents() {
+    }
+
+    private static void refresh() {
+        step = EventType.getEventType(Step.class).isEnabled();
+        catchUp = EventType.getEventType(CatchUp.class).isEnabled();
+        wakeCascade = EventType.getEventType(WakeCascade.class).isEnabled();
+        batch = EventType.getEventType(Batch.class).isEnabled();
+    }
+
+    public static boolean stepEnabled() {
+        return step;
+    }
+
+    public static boolean catchUpEnabled() {
+        return catchUp;
+    }
+
+    public static boolean wakeCascadeEnabled() {
+        return wakeCascade;
+    }
+
+    public static boolean batchEnabled() {
+        return batch;
+    }
+
+    @Name("physics.Step")
+    @Label("Physics Step")
+    @Category({ "Physics" })
+    @Description("One PhysicsUpdater fixed step")
+    @StackTrace(false)
+    @Threshold("20 ms") // only steps that blow a 60 Hz frame by default
+    public static final class Step extends Event {
+        @Label("Step")
+        public long step;
+        @Label("Bodies")
+        public int bodies;
+        @Label("Awake Bodies")
+        public int awakeBodies;
+        @Label("Candidate Pairs")
+        public int candidatePairs;
+        @Label("Manifolds")
+        public int manifolds;
+    }
+
+    @Name("physics.CatchUp")
+    @Label("Physics Catch Up")
+    @Category({ "Physics" })
+    @Description("Updater loop iteration whose accumulator hit the step cap, game time was dropped")
+    @StackTrace(false)
+    public static final class CatchUp extends Event {
+        @Label("Steps")
+        @Description("Steps run to catch up")
+        public int steps;
+        @Label("Dropped")
+        @Timespan(Timespan.NANOSECONDS)
+        public long droppedNanos;
+        @Label("Tick Rate")
+        public double tickRate;
+    }
+
+    @Name("physics.WakeCascade")
+    @Label("Physics Wake Cascade")
+    @Category({ "Physics" })
+    @Description("forceWakeContacts that woke at least PhysicsObject.WAKE_CASCADE_EVENT_MIN objects")
+    public static final class WakeCascade extends Event {
+        @Label("Woken")
+        public int woken;
+        @Label("Object Id")
+        public long objectId;
+    }
+
+    @Name("physics.Batch")
+    @Label("Physics Additions And Removals")
+    @Category({ "Physics" })
+    @Description("Slow proccessAditionsAndRemovals call, runs under the world's write lock")
+    @StackTrace(false)
+    @Threshold("1 ms")
+    public static final class Batch extends Event {
+        @Label("Added")
+        public int added;
+        @Label("Removed")
+        public int removed;
+        @Label("Broadphase Swapped")
+        public boolean broadphaseSwapped;
+        @Label("Static Index Rebuilt")
+        public boolean staticsRebuilt;
+    }
+}
@@ -2,258 +2,60 @@ package physics.process;
 
 import java.awt.Color;
 import java.awt.Graphics2D;
-import java.util.List;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import physics.objects.PhysicsBall;
 import physics.objects.PhysicsObject;
-import physics.objects.PhysicsRect;
 import physics.structures.Chunk;
-import physics.structures.Contact;
+import physics.structures.RenderFrame;
 import physics.structures.Vector2;
 
-public class PhysicsHandler {
+// Swing layer over a PhysicsWorld: camera, renderer and debug overlays
+// everything here runs on the render thread and only reads published frames
+public class PhysicsHandler extends PhysicsWorld {
 
-    private final PhysicsUpdater updater = new PhysicsUpdater();
     private final BatchRenderer renderer = new BatchRenderer();
     public final Display display = new Display();
 
-    private ArrayList<PhysicsObject> updateObjects = new ArrayList<>();
-    private volatile ArrayList<PhysicsObject> renderObjects = new ArrayList<>();
-
-    private ArrayList<PhysicsObject> staticObjects = new ArrayList<>();
-    private ArrayList<PhysicsObject> dynamicObjects = new ArrayList<>();
-
-    private ArrayList<PhysicsObject> addQueue = new ArrayList<>();
-    private ArrayList<PhysicsObject> removeQueue = new ArrayList<>();
-    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
-
-    private Thread updaterThread;
-
-    private Map<Long, Chunk> chunks = new HashMap<>();
-    public int chunkDimension = 25; // Chunk Dimension in pixels
-
-    public Vector2 gravity = new Vector2(0, 980);
-    private Long nextId = 1L;
+    private final int[] viewBorders = new int[4]; // render thread scratch
+    public boolean interpolate = true; // draw between the last two steps instead of the newest
 
     public PhysicsHandler() {
-        updater.setHandler(this);
         renderer.setDisplay(this.display);
     }
 
-    public void beginUpdaterThread() {
-        System.out.println("starting physics update thread");
-        if (updaterThread == null || !updaterThread.isAlive()) {
-            updaterThread = new Thread(updater, "Physics-Updater");
-            updaterThread.setDaemon(true);
-            updaterThread.start();
-        }
-    }
-
-    public void stopUpdaterThread() {
-
-        if (updater != null) {
-            updater.stop();
-        }
-    }
-
-    public void publishFrame() {
-        lock.readLock().lock();
-        try {
-            synchronized (updateObjects) {
-                renderObjects = new ArrayList<>(updateObjects); // snapshot copy
-            }
-        } finally {
-            lock.readLock().unlock();
-        }
-    }
-
     public void render(Graphics2D g) {
         renderer.setGraphics(g);
-        if (display.mainObject != null) {
-            int[] borders = display.getMainObjectViewDistanceBorders();
-            for (PhysicsObject p : getRenderObjects()) {
-                if (p != null && display.inViewDistance(p, borders))
-                    p.draw(renderer);
-            }
-
-        } else {
-            for (PhysicsObject p : getRenderObjects()) {
-                if (p != null)
-                    p.draw(renderer);
-            }
-        }
+        int[] view = null;
+        if (display.mainObject != null)
+            view = display.getMainObjectViewDistanceBorders(viewBorders);
+        RenderFrame f = getRenderFrame();
+        renderer.drawFrame(f, false, view, renderAlpha(f));
     }
 
     public void renderDebug(Graphics2D g) {
         renderer.setGraphics(g);
-        for (PhysicsObject p : getRenderObjects()) {
-            if (p != null)
-                p.drawDebug(renderer);
-        }
+        RenderFrame f = getRenderFrame();
+        renderer.drawFrame(f, true, null, renderAlpha(f));
     }
 
-    public void addObject(PhysicsObject object) {
-        synchronized (addQueue) {
-            if (!addQueue.contains(object)) {
-                object.id = nextId++;
-                addQueue.add(object);
-            }
-        }
+    private double renderAlpha(RenderFrame f) {
+        return interpolate ? f.alphaAt(System.nanoTime()) : 1.0;
     }
 
+    @Override
     public void removeObject(PhysicsObject object) {
-        synchronized (removeQueue) {
-            if (!removeQueue.contains(object)) {
-                if (display.mainObject == object)
-                    display.mainObject = null;
-                object.forceWake();
-                removeQueue.add(object);
-            }
-        }
-    }
-
-    public void proccessAditionsAndRemovals() {
-
-        // first, process any pending additions/removals queued from other threads
-        lock.writeLock().lock();
-
-        synchronized (addQueue) {
-            if (!addQueue.isEmpty()) {
-
-                for (PhysicsObject o : addQueue) {
-                    updateObjects.add(o);
-                    if (o.stationary) {
-                        staticObjects.add(o);
-                    } else {
-                        dynamicObjects.add(o);
-                    }
-                }
-                addQueue.clear();
-            }
-        }
-
-        synchronized (removeQueue) {
-            if (!removeQueue.isEmpty()) {
-                for (PhysicsObject o : removeQueue) {
-                    o.forceWake();
-                    // release contacts owned by the removed object
-                    for (Contact c : o.contacts) {
-                        Contact.release(c);
-                    }
-                    o.contacts.clear();
-
-                    updateObjects.remove(o);
-                    if (o.stationary) {
-                        staticObjects.remove(o);
-                    } else {
-                        dynamicObjects.remove(o);
-                    }
-
-                    // also remove from any chunks the object occupied
-                    for (int cx = o.cMinCx; cx <= o.cMaxCx; cx++) {
-                        for (int cy = o.cMinCy; cy <= o.cMaxCy; cy++) {
-                            Chunk ch = chunks.get(keyFor(cx, cy));
-                            if (ch == null)
-                                continue;
-                            ch.objects.remove(o);
-                            for (PhysicsObject o2 : ch.objects) {
-                                o2.forceWake();
-                            }
-                        }
-                    }
-                }
-                removeQueue.clear();
-            }
-        }
-        lock.writeLock().unlock();
-
-    }
-
-    public void addBall(Vector2 pos, int radius, double elasticity, double mass) {
-        PhysicsBall ball = new PhysicsBall(radius, elasticity, mass, 0);
-        ball.pos = pos;
-        addObject(ball);
+        if (display.mainObject == object)
+            display.mainObject = null;
+        super.removeObject(object);
     }
 
     public void addBall(Vector2 pos, int radius, double elasticity, double mass, Color color) {
         PhysicsBall ball = new PhysicsBall(radius, elasticity, mass, 0);
         ball.pos = pos;
-        ball.setDisplayColor(color);
+        ball.setDisplayColor(color.getRGB());
         addObject(ball);
     }
 
-    public void addRect(Vector2 center, int width, int height) {
-        PhysicsRect rect = new PhysicsRect(width, height, 0, 0);
-        rect.pos = center;
-        addObject(rect);
-    }
-
-    public void addRect(Vector2 center, int width, int height, double mass, double elasticity, boolean stationary) {
-        PhysicsRect rect = new PhysicsRect(width, height, mass, 0);
-        rect.pos = center;
-        rect.elasticity = elasticity;
-        rect.stationary = stationary;
-        addObject(rect);
-    }
-
-    public ArrayList<PhysicsObject> getUpdateObjects() {
-        return updateObjects;
-    }
-
-    public List<PhysicsObject> getUpdateObjectsSnapshot() {
-        lock.readLock().lock();
-        try {
-            synchronized (updateObjects) {
-                return Collections.unmodifiableList(new ArrayList<>(updateObjects));
-            }
-        } finally {
-            lock.readLock().unlock();
-        }
-    }
-
-    public ArrayList<PhysicsObject> getDynamicObjects() {
-        return dynamicObjects;
-    }
-
-    public List<PhysicsObject> getDynamicObjectsSnapshot() {
-        lock.readLock().lock();
-        try {
-            synchronized (dynamicObjects) {
-                return Collections.unmodifiableList(new ArrayList<>(dynamicObjects));
-            }
-        } finally {
-            lock.readLock().unlock();
-        }
-    }
-
-    public ArrayList<PhysicsObject> getStaticObjects() {
-        return staticObjects;
-    }
-
-    public List<PhysicsObject> getStaticObjectsSnapshot() {
-        lock.readLock().lock();
-        try {
-            synchronized (staticObjects) {
-                return Collections.unmodifiableList(new ArrayList<>(staticObjects));
-            }
-        } finally {
-            lock.readLock().unlock();
-        }
-    }
-
-    public PhysicsUpdater getUpdater() {
-        return updater;
-    }
-
-    public ArrayList<PhysicsObject> getRenderObjects() {
-        return renderObjects;
-    }
-
     public BatchRenderer getRenderer() {
         return renderer;
     }
@@ -262,43 +64,6 @@ public class PhysicsHandler {
         return display;
     }
 
-    public List<PhysicsObject> getObjectsInChunk(int tileX, int tileY) {
-        Chunk c = getOrCreateChunk(tileX, tileY);
-
-        lock.readLock().lock();
-        try {
-            synchronized (c.objects) {
-                return Collections.unmodifiableList(new ArrayList<>(c.objects));
-            }
-        } finally {
-            lock.readLock().unlock();
-        }
-    }
-
-    public List<PhysicsObject> getObjectsInChunk(Chunk c) {
-        if (c == null)
-            return new ArrayList<>();
-
-        lock.readLock().lock();
-        try {
-            synchronized (c.objects) {
-                return Collections.unmodifiableList(new ArrayList<>(c.objects));
-            }
-        } finally {
-            lock.readLock().unlock();
-        }
-    }
-
-    // check for a chunk or add one to the map
-    public Chunk getOrCreateChunk(int cx, int cy) {
-        return chunks.computeIfAbsent(keyFor(cx, cy), k -> new Chunk());
-    }
-
-    // get key for a chunk
-    public long keyFor(int cx, int cy) {
-        return ((long) cx << 32) ^ (cy & 0xffffffffL);
-    }
-
     public void displayChunkBorders(Graphics2D g, int scrWidth, int scrHeight) {
         double scale = display.scale;
         if (scale <= 0)
@@ -374,8 +139,7 @@ public class PhysicsHandler {
 
         for (int cx = minCx; cx <= maxCx; cx++) {
             for (int cy = minCy; cy <= maxCy; cy++) {
-                long key = (((long) cx) << 32) | (cy & 0xffffffffL);
-                Chunk chunk = chunks.get(key);
+                Chunk chunk = getChunk(cx, cy);
                 if (chunk == null)
                     continue;
 
@@ -393,7 +157,7 @@ public class PhysicsHandler {
                 g.drawRect(worldX, worldY, tileScreenSize, tileScreenSize);
 
                 if (fillActiveChunks) {
-                    if (!chunk.objects.isEmpty()) {
+                    if (!chunk.isEmpty()) {
                         g.setColor(Color.green.darker());
                         g.fillRect(worldX, worldY, tileScreenSize, tileScreenSize);
                     }
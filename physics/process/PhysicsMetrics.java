@@ -0,0 +1,23 @@
+package physics.process;
+
+// receives the timings and counters of every step, set on
+// PhysicsUpdater.metrics. called on the stepping thread right after the step,
+// the stats object is reused, so keep values, not the object
+public interface PhysicsMetrics {
+
+    // parts of a step, in the order they run
+    enum Phase {
+        CHUNK_UPDATE, // broadphase update and empty chunk sweep
+        CONTACT_CLEAR, // support state and last step's contacts
+        INTEGRATE, // gravity and velocity integration
+        // pair search, static geometry queries, collision tests and per object
+        // contacts. the serial narrowphase tests pairs as the search finds them,
+        // so they are one phase on every path
+        PAIRS_AND_NARROWPHASE,
+        POSITION_CORRECTION,
+        VELOCITY_SOLVE, // islands, warm start, impulses and manifold release
+        SLEEP_UPDATE // sleep state and object update hooks
+    }
+
+    void stepCompleted(StepStats stats);
+}
@@ -3,23 +3,62 @@ package physics.process;
 import java.util.ArrayList;
 import java.util.concurrent.locks.LockSupport;
 
+import physics.collisions.Broadphase;
+import physics.collisions.ParallelNarrowphase;
+import physics.collisions.StaticGeometryIndex;
 import physics.objects.PhysicsObject;
-import physics.structures.Chunk;
+import physics.process.PhysicsMetrics.Phase;
 import physics.structures.Contact;
 import physics.structures.Manifold;
+import physics.structures.PairCache;
 import physics.structures.Vector2;
 
 public class PhysicsUpdater implements Runnable {
 
-    private PhysicsHandler handler;
+    private PhysicsWorld world;
 
-    private static final float FIXED_DT = 1f / 60; // physics rate
-    private static final long NANOS_PER_UPDATE = (long) (1_000_000_000 * FIXED_DT);
+    // physics rate, a new one set from any thread is picked up before the next step
+    private volatile double tickRate = 60;
+    private double appliedTickRate = 60;
+    private float fixedDt = 1f / 60;
+    private long nanosPerUpdate = (long) (1_000_000_000 * fixedDt);
 
     private volatile boolean running = true;
 
-    public java.util.HashSet<Long> processedPairs = new java.util.HashSet<>();
+    // the updater thread sleeps until each step's deadline. UNTHROTTLED runs
+    // steps back to back instead, game time then runs as fast as the machine
+    // allows, for offline simulation
+    public volatile boolean UNTHROTTLED = false;
+    public long UNTHROTTLED_PUBLISH_NANOS = 16_666_667L; // render frames at most this often
+    public long SPIN_NANOS = 20_000L; // spun before each deadline on top of the park margin
+    private long parkLateness = 50_000L; // how late parkNanos returns, running average
+
     public ArrayList<Manifold> frameManifolds = new ArrayList<>();
+    private final Broadphase.PairCallback narrowphase = this::collidePair;
+
+    // narrowphase across worker threads, same manifolds in the same order as the
+    // serial path. collision hooks then run on the workers
+    public boolean PARALLEL_NARROWPHASE = false;
+    public int NARROWPHASE_THREADS = Runtime.getRuntime().availableProcessors();
+    private ParallelNarrowphase parallelNarrowphase = null;
+
+    // velocity solver over graph colored batches instead of one Gauss-Seidel pass
+    // in frame order. stationary objects are held still while it solves
+    public boolean PARALLEL_SOLVER = false;
+    public int SOLVER_THREADS = Runtime.getRuntime().availableProcessors();
+    private ColoredSolver coloredSolver = null;
+
+    // contact islands, each solved on its own and put to sleep or woken as a
+    // whole. with PARALLEL_SOLVER the islands are spread over SOLVER_THREADS
+    public boolean ISLANDS = false;
+    private final IslandSolver islandSolver = new IslandSolver(this);
+    private boolean islandRings = false; // objects still linked from an earlier island step
+
+    // per phase timings and counters after every step, null skips the clock
+    // reads. the step runs the same code either way
+    public volatile PhysicsMetrics metrics = null; // may be swapped from other threads
+    private final StepStats stats = new StepStats();
+    private int candidatePairs = 0;
 
     // scratch temporaries to reduce per-frame allocations
     private final Vector2 _tmpA = new Vector2();
@@ -27,164 +66,362 @@ public class PhysicsUpdater implements Runnable {
     private final Vector2 _tmpC = new Vector2();
 
     public int POS_ITERS = 3;
-    public int SOLVER_ITERS = 20;
+    public int SOLVER_ITERS = 6; // warm started, was 20 cold
+
+    // stop velocity passes once one barely changes anything: no relative
+    // velocity changed by more than VELOCITY_TOLERANCE. SOLVER_ITERS stays the
+    // maximum, islands converge one by one. position passes always run POS_ITERS
+    public boolean ADAPTIVE_ITERATIONS = false;
+    public int MIN_SOLVER_ITERS = 2;
+    public double VELOCITY_TOLERANCE = 1.0; // px/s, impulse times the pair's inverse mass sum
+    private int solverIterations = 0; // passes run last step, most of any island
+    private int positionIterations = 0;
+
+    // contact impulses carried over between steps
+    public boolean WARM_STARTING = true;
+    public double WARM_START_FACTOR = 0.8; // share of last step's impulse applied up front
+    public double WARM_START_NORMAL_DOT = 0.95; // reuse only while the normal barely turned
+    private final PairCache pairCache = new PairCache();
+    private int stepCount = 0;
 
     public double POSCORR_SLOP = 0.01; // allowance
     public double POSCORR_PERCENT = 0.1; // return
     public double MIN_VEL_FOR_RESTITUTION = 8.0;
 
+    private long steps = 0; // fixed steps taken since construction
+    private double time = 0; // game time those steps covered
     private int updates = 0;
     private long lastTime = System.nanoTime();
     private volatile int ups = 0;
 
-    public void setHandler(PhysicsHandler handler) {
-        this.handler = handler;
+    public void setWorld(PhysicsWorld world) {
+        this.world = world;
     }
 
     public void stop() {
         running = false;
+        if (parallelNarrowphase != null)
+            parallelNarrowphase.shutdown();
+        if (coloredSolver != null)
+            coloredSolver.shutdown();
+        islandSolver.shutdown();
+        if (world != null)
+            world.shutdown();
     }
 
     @Override
     public void run() {
-        long previous = System.nanoTime();
-        long accumulator = 0L;
+        long next = System.nanoTime(); // deadline of the next step
+        long lastPublish = next;
 
         while (running) {
+            applyTickRate();
+
+            if (UNTHROTTLED) {
+                // offline: steps back to back, frames at most at the display rate
+                fixedUpdate();
+                long now = System.nanoTime();
+                countUpdates(now, 1);
+                if (now - lastPublish >= UNTHROTTLED_PUBLISH_NANOS) {
+                    world.publishFrame(now, 0); // nothing to interpolate at this speed
+                    lastPublish = now;
+                }
+                next = now;
+                continue;
+            }
+
+            sleepUntil(next);
             long now = System.nanoTime();
-            long frameTime = now - previous;
-            previous = now;
-            accumulator += frameTime;
+            long due = (now - next) / nanosPerUpdate + 1; // steps whose deadline passed
 
             // Cap to avoid spiral of death after long pause
-            if (accumulator > NANOS_PER_UPDATE * 16)
-                accumulator = NANOS_PER_UPDATE * 16;
-
-            handler.proccessAditionsAndRemovals(); // add/remove objects in queue
+            PhysicsEvents.CatchUp catchUp = null;
+            if (due > 16) {
+                if (PhysicsEvents.catchUpEnabled()) {
+                    catchUp = new PhysicsEvents.CatchUp();
+                    catchUp.begin();
+                    catchUp.droppedNanos = (due - 16) * nanosPerUpdate;
+                }
+                next += (due - 16) * nanosPerUpdate;
+                due = 16;
+            }
 
-            while (accumulator >= NANOS_PER_UPDATE) {
+            for (int i = 0; i < due; i++) {
                 fixedUpdate();
-                accumulator -= NANOS_PER_UPDATE;
-                updates++;
+                next += nanosPerUpdate;
             }
-            if (now - lastTime >= 1_000_000_000L) {
-                ups = updates;
-                updates = 0;
-                lastTime = now;
+            countUpdates(now, (int) due);
+            if (catchUp != null && catchUp.shouldCommit()) {
+                catchUp.steps = (int) due;
+                catchUp.tickRate = appliedTickRate;
+                catchUp.commit();
             }
 
-            handler.publishFrame(); // publish snapshot for rendering
+            // the newest state belongs to the deadline of the last step
+            world.publishFrame(next - nanosPerUpdate, nanosPerUpdate);
+        }
 
-            // sleep a tiny amount to reduce CPU usage (tunable)
-            LockSupport.parkNanos(1_000_000L); // 1ms
+    }
 
+    // park until shortly before the deadline, then spin the rest. the park
+    // margin follows how late park has been returning on this machine
+    private void sleepUntil(long deadline) {
+        while (true) {
+            long left = deadline - System.nanoTime();
+            if (left <= 0)
+                return;
+            long margin = parkLateness + SPIN_NANOS;
+            if (left > margin) {
+                long asked = left - margin;
+                long parked = System.nanoTime();
+                LockSupport.parkNanos(asked);
+                long late = System.nanoTime() - parked - asked;
+                parkLateness += (Math.max(0, late) - parkLateness) >> 3;
+            } else {
+                Thread.onSpinWait();
+            }
         }
+    }
 
+    private void countUpdates(long now, int steps) {
+        updates += steps;
+        if (now - lastTime >= 1_000_000_000L) {
+            ups = updates;
+            updates = 0;
+            lastTime = now;
+        }
     }
 
     public int getUps() {
         return ups;
     }
 
-    private void fixedUpdate() {
-        ArrayList<PhysicsObject> objects = new ArrayList<>(handler.getUpdateObjects());
-        int size = objects.size();
-        ArrayList<PhysicsObject> dynamicObjects = handler.getUpdateObjects();
-        int dynamicObjectsSize = dynamicObjects.size();
+    public long getStepCount() {
+        return steps;
+    }
 
-        synchronized (objects) {
-            synchronized (dynamicObjects) {
+    public double getTime() {
+        return time;
+    }
 
-                for (int i = 0; i < dynamicObjectsSize; i++) {
-                    updateObjectsChunks(dynamicObjects.get(i));
-                    updateObjectsSupportState(dynamicObjects.get(i));
-                }
-                for (int i = 0; i < size; i++) {
-                    clearObjectsContacts(objects.get(i));
-                }
+    // steps per second, 30 halves the physics cost and the renderer
+    // interpolates between the last two states
+    public void setTickRate(double hz) {
+        if (!(hz > 0))
+            throw new IllegalArgumentException("tick rate must be positive: " + hz);
+        tickRate = hz;
+    }
 
-                for (int i = 0; i < dynamicObjectsSize; i++) {
-                    addGravity(dynamicObjects.get(i));
-                }
+    public double getTickRate() {
+        return tickRate;
+    }
 
-                for (int i = 0; i < dynamicObjectsSize; i++) {
-                    updateObjectsVelocities(dynamicObjects.get(i));
-                }
+    // seconds advanced by one step
+    public double getFixedDt() {
+        return fixedDt;
+    }
 
-                // check by pairs
-                processedPairs.clear();
-                proccessCollisionsByPairs(dynamicObjects);
+    // advance one fixed step on the calling thread
+    public void step() {
+        applyTickRate();
+        fixedUpdate();
+    }
 
-                createPerObjectContacts();
+    private void applyTickRate() {
+        double hz = tickRate;
+        if (hz == appliedTickRate)
+            return;
+        appliedTickRate = hz;
+        fixedDt = 1f / (float) hz;
+        nanosPerUpdate = (long) (1_000_000_000 * fixedDt);
+    }
 
-                // small positional correction passes
-                for (int p = 0; p < POS_ITERS; p++) {
-                    for (Manifold m : frameManifolds)
-                        positionalCorrection(m);
-                }
-                // iterative velocity solver
-                for (int it = 0; it < SOLVER_ITERS; it++) {
-                    for (Manifold m : frameManifolds)
-                        resolveVelocityImpulse(m);
-                }
+    private void fixedUpdate() {
+        world.proccessAditionsAndRemovals(); // commands queued since the last step
+        steps++;
+        time += fixedDt;
+        PhysicsEvents.Step event = null;
+        if (PhysicsEvents.stepEnabled()) {
+            event = new PhysicsEvents.Step();
+            event.begin();
+        }
+        PhysicsMetrics sink = metrics;
+        boolean timed = sink != null;
+        long start = timed ? System.nanoTime() : 0;
+        long t = start;
+        if (timed)
+            stats.reset();
+        candidatePairs = 0;
+        // only moving objects take part in the per-step loops, statics live in
+        // the world's baked static index
+        ArrayList<PhysicsObject> dynamicObjects = world.getDynamicObjects();
+        int dynamicObjectsSize = dynamicObjects.size();
 
-                // release pooled Manifolds
-                releaseManifolds();
+        synchronized (dynamicObjects) {
 
-                for (int i = 0; i < size; i++) {
-                    objects.get(i).updateSleepState(); // +1 sleepFrames if vel == threshold
-                    objects.get(i).update(FIXED_DT);
-                }
+            // where each object started this step, the renderer interpolates from it
+            for (int i = 0; i < dynamicObjectsSize; i++) {
+                PhysicsObject o = dynamicObjects.get(i);
+                o.prevX = o.pos.x;
+                o.prevY = o.pos.y;
             }
 
-        }
+            Broadphase broadphase = world.getBroadphase();
+            broadphase.update(dynamicObjects);
+            if (timed)
+                t = lap(Phase.CHUNK_UPDATE, t);
+            for (int i = 0; i < dynamicObjectsSize; i++) {
+                updateObjectsSupportState(dynamicObjects.get(i));
+            }
+            for (int i = 0; i < dynamicObjectsSize; i++) {
+                clearObjectsContacts(dynamicObjects.get(i));
+            }
+            if (timed)
+                t = lap(Phase.CONTACT_CLEAR, t);
 
-    }
+            for (int i = 0; i < dynamicObjectsSize; i++) {
+                addGravity(dynamicObjects.get(i));
+            }
 
-    private void updateObjectsChunks(PhysicsObject o) {
+            for (int i = 0; i < dynamicObjectsSize; i++) {
+                updateObjectsVelocities(dynamicObjects.get(i));
+            }
+            if (timed)
+                t = lap(Phase.INTEGRATE, t);
+
+            // check by pairs
+            Broadphase.PairCallback pairs = narrowphase;
+            ParallelNarrowphase queue = null;
+            if (PARALLEL_NARROWPHASE) {
+                queue = getParallelNarrowphase(); // queue now, collide below
+                pairs = queue;
+            }
+            broadphase.findPairs(dynamicObjects, pairs);
+
+            // awake objects against static geometry, static pairs never happen
+            StaticGeometryIndex statics = world.getStaticIndex();
+            for (int i = 0; i < dynamicObjectsSize; i++) {
+                PhysicsObject o = dynamicObjects.get(i);
+                if (!o.sleeping) {
+                    o.computeBounds(o.bounds);
+                    statics.query(o, pairs);
+                }
+            }
 
-        int chunkDimension = handler.chunkDimension;
+            if (queue != null) {
+                candidatePairs += queue.size();
+                queue.collide(frameManifolds);
+            }
 
-        int ncx = (int) (Math.floor(o.pos.x / chunkDimension));
-        int ncy = (int) (Math.floor(o.pos.y / chunkDimension));
+            createPerObjectContacts();
+            if (timed)
+                t = lap(Phase.PAIRS_AND_NARROWPHASE, t);
+
+            if (ISLANDS) {
+                islandSolver.build(dynamicObjects, frameManifolds);
+                islandRings = true;
+            } else if (islandRings) {
+                for (int i = 0; i < dynamicObjectsSize; i++)
+                    dynamicObjects.get(i).islandNext = null;
+                islandRings = false;
+            }
+            if (timed)
+                t = lap(Phase.VELOCITY_SOLVE, t);
 
-        // if (ncx == o.cx && ncy == o.cy)
-        // return;
+            // small positional correction passes
+            for (int p = 0; p < POS_ITERS; p++) {
+                for (int i = 0, n = frameManifolds.size(); i < n; i++)
+                    positionalCorrection(frameManifolds.get(i));
+            }
+            positionIterations = frameManifolds.isEmpty() ? 0 : POS_ITERS;
+            if (timed)
+                t = lap(Phase.POSITION_CORRECTION, t);
+            if (WARM_STARTING)
+                warmStart();
+
+            // iterative velocity solver
+            if (ISLANDS) {
+                solverIterations = islandSolver.solve(SOLVER_ITERS, PARALLEL_SOLVER, Math.max(1, SOLVER_THREADS));
+            } else if (PARALLEL_SOLVER) {
+                solverIterations = getColoredSolver().solve(frameManifolds, SOLVER_ITERS);
+            } else {
+                int it = 0;
+                while (it < SOLVER_ITERS) {
+                    it++;
+                    double largest = 0;
+                    for (int i = 0, n = frameManifolds.size(); i < n; i++)
+                        largest = Math.max(largest, resolveVelocityImpulse(frameManifolds.get(i)));
+                    if (converged(it, largest))
+                        break;
+                }
+                solverIterations = frameManifolds.isEmpty() ? 0 : it;
+            }
 
-        // if the chunk changed, and the object is large, it will occupy different
-        // chunks
+            if (WARM_STARTING)
+                storeImpulses();
 
-        int[] occuppiedChunks = o.getOccuppiedChunks(chunkDimension);
-        int minCx = occuppiedChunks[0];
-        int maxCx = occuppiedChunks[1];
-        int minCy = occuppiedChunks[2];
-        int maxCy = occuppiedChunks[3];
+            // release pooled Manifolds
+            int manifolds = frameManifolds.size();
+            releaseManifolds();
+            if (timed)
+                t = lap(Phase.VELOCITY_SOLVE, t);
 
-        if (minCx == o.cMinCx && maxCx == o.cMaxCx && minCy == o.cMinCy && maxCy == o.cMaxCy)
-            return;
+            world.sweepEmptyChunks();
+            if (timed)
+                t = lap(Phase.CHUNK_UPDATE, t);
 
-        // remove from olds
-        for (int cx = o.cMinCx; cx <= o.cMaxCx; cx++) {
-            for (int cy = o.cMinCy; cy <= o.cMaxCy; cy++) {
-                Chunk old = handler.getOrCreateChunk(cx, cy);
-                if (old != null)
-                    old.objects.remove(o);
+            for (int i = 0; i < dynamicObjectsSize; i++) {
+                dynamicObjects.get(i).updateSleepState(); // +1 sleepFrames if vel == threshold
+                dynamicObjects.get(i).update(fixedDt);
+            }
+            if (ISLANDS) {
+                islandSolver.updateSleep();
+                islandSolver.clear();
             }
-        }
 
-        // add to news
-        for (int cx = minCx; cx <= maxCx; cx++) {
-            for (int cy = minCy; cy <= maxCy; cy++) {
-                Chunk old = handler.getOrCreateChunk(cx, cy);
-                if (old != null)
-                    old.objects.add(o);
+            if (timed)
+                t = lap(Phase.SLEEP_UPDATE, t);
+            boolean recorded = event != null && event.shouldCommit();
+            int awake = 0;
+            if (timed || recorded) {
+                for (int i = 0; i < dynamicObjectsSize; i++) {
+                    if (!dynamicObjects.get(i).sleeping)
+                        awake++;
+                }
+            }
+            if (recorded) {
+                event.step = steps;
+                event.bodies = dynamicObjectsSize;
+                event.awakeBodies = awake;
+                event.candidatePairs = candidatePairs;
+                event.manifolds = manifolds;
+                event.commit();
+            }
+
+            if (timed) {
+                stats.step = steps;
+                stats.stepNanos = t - start;
+                stats.bodies = dynamicObjectsSize;
+                stats.awakeBodies = awake;
+                stats.statics = world.getStaticObjects().size();
+                stats.candidatePairs = candidatePairs;
+                stats.manifolds = manifolds;
+                stats.solverIterations = solverIterations;
+                stats.positionIterations = positionIterations;
+                stats.manifoldPool = Manifold.poolSize();
+                stats.contactPool = Contact.poolSize();
+                stats.chunks = world.getLiveChunkCount();
             }
         }
 
-        // update object chunk pos
-        o.cx = ncx;
-        o.cy = ncy;
-        o.updateOccupiedChunks(occuppiedChunks);
+        if (timed)
+            sink.stepCompleted(stats);
+    }
+
+    private long lap(Phase phase, long since) {
+        long now = System.nanoTime();
+        stats.phaseNanos[phase.ordinal()] += now - since;
+        return now;
     }
 
     private void updateObjectsSupportState(PhysicsObject o) {
@@ -197,8 +434,8 @@ public class PhysicsUpdater implements Runnable {
         if (o != null) {
 
             if (!o.sleeping) {
-                for (Contact c : o.contacts) {
-                    Contact.release(c);
+                for (int i = 0, n = o.contacts.size(); i < n; i++) {
+                    Contact.release(o.contacts.get(i));
                 }
                 o.contacts.clear();
 
@@ -208,74 +445,93 @@ public class PhysicsUpdater implements Runnable {
 
     private void addGravity(PhysicsObject o) {
         if (!o.stationary && !o.supported && !o.sleeping) {
-            o.addForce(handler.gravity, FIXED_DT);
+            o.addForce(world.gravity, fixedDt);
         }
     }
 
     private void updateObjectsVelocities(PhysicsObject o) {
         if (!o.stationary && !o.sleeping)
-            o.integrateVelocity(FIXED_DT);
-    }
-
-    private void proccessCollisionsByPairs(ArrayList<PhysicsObject> objects) {
-        // iterate objects
-        for (PhysicsObject o1 : objects) {
-            if (!o1.sleeping)
-                for (int cx = o1.cMinCx; cx <= o1.cMaxCx; cx++) {
-                    for (int cy = o1.cMinCy; cy <= o1.cMaxCy; cy++) {
-                        Chunk ch = handler.getOrCreateChunk(cx, cy);
-                        if (ch == null)
-                            continue;
-                        for (PhysicsObject o2 : ch.objects) {
-
-                            long a = Math.min(o1.id, o2.id);
-                            long b = Math.max(o1.id, o2.id);
-                            long pairKey = (a << 32) | (b & 0xffffffffL);
-
-                            if (processedPairs.contains(pairKey))
-                                continue; // already handled this unordered pair in another chunk
-                            processedPairs.add(pairKey);
-                            Manifold m = o1.collide(o2); // normal o2 -> o1
-                            if (m != null) {
-                                if (m.collided) {
-                                    frameManifolds.add(m);
-                                } else {
-                                    Manifold.release(m);
-                                }
-                            }
-                        }
-                    }
-                }
+            o.integrateVelocity(fixedDt);
+    }
+
+    private void collidePair(PhysicsObject o1, PhysicsObject o2) {
+        candidatePairs++;
+        Manifold m = o1.collide(o2); // normal o2 -> o1
+        if (m != null) {
+            if (m.collided) {
+                frameManifolds.add(m);
+            } else {
+                Manifold.release(m);
+            }
         }
     }
 
+    private ParallelNarrowphase getParallelNarrowphase() {
+        if (parallelNarrowphase == null || parallelNarrowphase.getParallelism() != Math.max(1, NARROWPHASE_THREADS)) {
+            if (parallelNarrowphase != null)
+                parallelNarrowphase.shutdown();
+            parallelNarrowphase = new ParallelNarrowphase(NARROWPHASE_THREADS);
+        }
+        return parallelNarrowphase;
+    }
+
+    // velocity and position passes the last step ran
+    public int getSolverIterations() {
+        return solverIterations;
+    }
+
+    public int getPositionIterations() {
+        return positionIterations;
+    }
+
+    public int getIslandCount() {
+        return ISLANDS ? islandSolver.getIslandCount() : 0;
+    }
+
+    public int getSleptIslandCount() {
+        return ISLANDS ? islandSolver.getSleptIslandCount() : 0;
+    }
+
+    private ColoredSolver getColoredSolver() {
+        if (coloredSolver == null || coloredSolver.getParallelism() != Math.max(1, SOLVER_THREADS)) {
+            if (coloredSolver != null)
+                coloredSolver.shutdown();
+            coloredSolver = new ColoredSolver(this, SOLVER_THREADS);
+        }
+        return coloredSolver;
+    }
+
     private void createPerObjectContacts() {
 
-        for (Manifold m : frameManifolds) {
+        for (int i = 0, n = frameManifolds.size(); i < n; i++) {
+            Manifold m = frameManifolds.get(i);
             canonicalizeNormal(m);
-            m.o1.addContact(m.o2, m.normal, m.penetration);
-            m.o2.addContact(m.o1, m.normal.scale(-1), m.penetration);
+            // statics keep no contact list, nothing ever clears it
+            if (!m.o1.stationary)
+                m.o1.addContact(m.o2, m.normal, m.penetration);
+            if (!m.o2.stationary)
+                m.o2.addContact(m.o1, m.normal.x * -1, m.normal.y * -1, m.penetration);
         }
     }
 
     private void canonicalizeNormal(Manifold m) {
 
         // Ensure manifold.normal points from o1 -> o2 (handleCollision expects this)
-        if (m.normal == null || m.normal.lengthSquared() < 1e-9) {
+        if (m.normal.lengthSquared() < 1e-9) {
             // fallback: use vector from o1 -> o2
             _tmpA.setSub(m.o2.pos, m.o1.pos);
             if (_tmpA.lengthSquared() < 1e-9) {
                 // unresolvable direction; pick up
-                m.normal = new Vector2(0, -1);
+                m.normal.set(0, -1);
             } else {
-                m.normal = new Vector2(_tmpA.x / _tmpA.length(), _tmpA.y / _tmpA.length());
+                m.normal.set(_tmpA.x / _tmpA.length(), _tmpA.y / _tmpA.length());
             }
         } else {
             _tmpA.setSub(m.o2.pos, m.o1.pos); // vector from o1 to o2
             double dot = m.normal.dot(_tmpA);
             if (dot < 0) {
                 // flip normal so it points from o1 to o2
-                m.normal = m.normal.scale(-1.0);
+                m.normal.scaleLocal(-1.0);
             }
             // normalize to be safe
             m.normal.normalizeLocal();
@@ -283,6 +539,59 @@ public class PhysicsUpdater implements Runnable {
 
     }
 
+    // apply last step's impulses before iterating, so resting contacts start
+    // close to their solution. impulses are cached with the normal and tangent
+    // oriented from the lower id to the higher one, objects may swap order
+    private void warmStart() {
+        for (int i = 0, n = frameManifolds.size(); i < n; i++) {
+            Manifold m = frameManifolds.get(i);
+            int slot = pairCache.find(PairCache.keyFor(m.o1.id, m.o2.id));
+            if (slot < 0)
+                continue;
+
+            double sign = (m.o1.id < m.o2.id) ? 1.0 : -1.0;
+            double nx = pairCache.normalX(slot) * sign;
+            double ny = pairCache.normalY(slot) * sign;
+            if (nx * m.normal.x + ny * m.normal.y < WARM_START_NORMAL_DOT)
+                continue;
+
+            double jn = pairCache.normalImpulse(slot) * WARM_START_FACTOR;
+            double jt = pairCache.tangentImpulse(slot) * WARM_START_FACTOR;
+            m.accumulatedNormalImpulse = jn;
+            m.warmNormalImpulse = jn;
+            m.accumulatedTangentImpulse = jt;
+            m.tangent.set(pairCache.tangentX(slot) * sign, pairCache.tangentY(slot) * sign);
+
+            PhysicsObject a = m.o1, b = m.o2;
+            _tmpA.setScale(m.normal, jn);
+            _tmpB.setScale(m.tangent, jt);
+            _tmpA.addLocal(_tmpB);
+            _tmpC.setScale(_tmpA, a.invMass);
+            a.vel.subLocal(_tmpC);
+            _tmpC.setScale(_tmpA, b.invMass);
+            b.vel.addLocal(_tmpC);
+        }
+    }
+
+    private void storeImpulses() {
+        stepCount++;
+        for (int i = 0, n = frameManifolds.size(); i < n; i++) {
+            Manifold m = frameManifolds.get(i);
+            if (m.bounced)
+                continue; // bounces are not carried over, only resting load
+            double sign = (m.o1.id < m.o2.id) ? 1.0 : -1.0;
+            pairCache.store(PairCache.keyFor(m.o1.id, m.o2.id), stepCount,
+                    m.accumulatedNormalImpulse, m.accumulatedTangentImpulse,
+                    m.normal.x * sign, m.normal.y * sign, m.tangent.x * sign, m.tangent.y * sign);
+        }
+        // pairs that stopped touching
+        pairCache.evictStale(stepCount);
+    }
+
+    public PairCache getPairCache() {
+        return pairCache;
+    }
+
     private void positionalCorrection(Manifold m) {
         PhysicsObject a = m.o1;
         PhysicsObject b = m.o2;
@@ -295,42 +604,74 @@ public class PhysicsUpdater implements Runnable {
         double correctionMag = Math.max(m.penetration - POSCORR_SLOP, 0.0) / invSum * POSCORR_PERCENT;
         correctionMag = Math.min(correctionMag, Math.max(m.penetration * 0.5, 0.001));
 
-        a.pos.subLocal(m.normal.scale(correctionMag * invA));
-        b.pos.addLocal(m.normal.scale(correctionMag * invB));
+        double ca = correctionMag * invA;
+        double cb = correctionMag * invB;
+        a.pos.x -= m.normal.x * ca;
+        a.pos.y -= m.normal.y * ca;
+        b.pos.x += m.normal.x * cb;
+        b.pos.y += m.normal.y * cb;
+    }
 
+    private double resolveVelocityImpulse(Manifold m) {
+        wakeContact(m, _tmpA);
+        return solveContact(m, false, _tmpA, _tmpB, _tmpC);
     }
 
-    private void resolveVelocityImpulse(Manifold m) {
+    // whether a velocity pass that changed no relative velocity by more than
+    // largest is the last one
+    boolean converged(int passes, double largest) {
+        return ADAPTIVE_ITERATIONS && passes >= MIN_SOLVER_ITERS && largest < VELOCITY_TOLERANCE;
+    }
 
+    // wake objects (use magnitude of relative speed so approaching or separating
+    // wakes). split from solveContact so the colored solver can run it serially
+    void wakeContact(Manifold m, Vector2 tmp) {
         PhysicsObject a = m.o1, b = m.o2;
-        double invA = a.invMass;
-        double invB = b.invMass;
+        if (a.invMass + b.invMass == 0)
+            return;
+        tmp.setSub(b.vel, a.vel);
+        double velAlongNormal = tmp.dot(m.normal);
+        a.wake(Math.abs(velAlongNormal), m.penetration);
+        b.wake(Math.abs(velAlongNormal), m.penetration);
+    }
+
+    // one velocity impulse on a contact, touches only m, m.o1.vel and m.o2.vel
+    // pinStatics treats stationary objects as immovable so contacts sharing only a
+    // static body can be solved at the same time. returns the largest change in
+    // relative velocity the normal or friction impulse made
+    double solveContact(Manifold m, boolean pinStatics, Vector2 tmpA, Vector2 tmpB, Vector2 tmpC) {
+
+        PhysicsObject a = m.o1, b = m.o2;
+        double invA = (pinStatics && a.stationary) ? 0.0 : a.invMass;
+        double invB = (pinStatics && b.stationary) ? 0.0 : b.invMass;
         double invSum = invA + invB;
         if (invSum == 0)
-            return;
+            return 0;
+        double change = 0;
 
         // relative velocity
-        _tmpA.setSub(b.vel, a.vel);
-        Vector2 rv = _tmpA;
+        tmpA.setSub(b.vel, a.vel);
+        Vector2 rv = tmpA;
         double velAlongNormal = rv.dot(m.normal);
 
-        // wake objects (use magnitude of relative speed so approaching or separating
-        // wakes)
-        a.wake(Math.abs(velAlongNormal), m.penetration);
-        b.wake(Math.abs(velAlongNormal), m.penetration);
-
         // Normal impulse - use conservative minimum restitution between objects using
         // threshold velocity
         double e = Math.abs(velAlongNormal) < MIN_VEL_FOR_RESTITUTION ? 0.0
                 : Math.min(1.0, Math.min(a.elasticity, b.elasticity));
-        // System.out.println(velAlongNormal + " " + e);
 
+        double j;
         if (velAlongNormal > 0) {
-            // objects separating — no normal impulse
+            // objects separating — no new normal impulse, but a warm started
+            // impulse that turned out too strong may be taken back
+            j = Math.max(-velAlongNormal / invSum, -m.warmNormalImpulse);
         } else {
-            double j = -(1.0 + e) * velAlongNormal;
+            j = -(1.0 + e) * velAlongNormal;
             j /= invSum;
+            if (e > 0.0)
+                m.bounced = true;
+        }
 
+        if (j != 0.0) {
             // accumulate and clamp (optional), use m.accumulatedNormalImpulse
             double oldImpulse = m.accumulatedNormalImpulse;
             double newImpulse = oldImpulse + j;
@@ -338,26 +679,37 @@ public class PhysicsUpdater implements Runnable {
                 newImpulse = 0;
             double appliedImpulse = newImpulse - oldImpulse;
             m.accumulatedNormalImpulse = newImpulse;
-
-            _tmpB.setScale(m.normal, appliedImpulse);
-            _tmpC.setScale(_tmpB, invA);
-            a.vel.subLocal(_tmpC);
-            _tmpC.setScale(_tmpB, invB);
-            b.vel.addLocal(_tmpC);
+            change = Math.abs(appliedImpulse) * invSum;
+            if (appliedImpulse < 0)
+                m.warmNormalImpulse += appliedImpulse;
+
+            tmpB.setScale(m.normal, appliedImpulse);
+            if (invA != 0) {
+                tmpC.setScale(tmpB, invA);
+                a.vel.subLocal(tmpC);
+            }
+            if (invB != 0) {
+                tmpC.setScale(tmpB, invB);
+                b.vel.addLocal(tmpC);
+            }
         }
 
         // Friction (Coulomb)
         // recompute relative velocity after normal impulse applied
 
-        _tmpA.setSub(b.vel, a.vel);
-        rv = _tmpA;
+        tmpA.setSub(b.vel, a.vel);
+        rv = tmpA;
         double rvDot = rv.dot(m.normal);
-        _tmpB.setScale(m.normal, rvDot);
-        _tmpC.setSub(rv, _tmpB);
-        Vector2 tangent = _tmpC;
+        tmpB.setScale(m.normal, rvDot);
+        tmpC.setSub(rv, tmpB);
+        Vector2 tangent = tmpC;
         double tLen2 = tangent.lengthSquared();
         if (tLen2 > 1e-9) {
             tangent.normalizeLocal();
+            // keep the accumulated impulse expressed along the current tangent
+            if (m.tangent.dot(tangent) < 0)
+                m.accumulatedTangentImpulse = -m.accumulatedTangentImpulse;
+            m.tangent.set(tangent);
             double jt = -rv.dot(tangent);
             jt /= invSum;
 
@@ -373,17 +725,24 @@ public class PhysicsUpdater implements Runnable {
             }
             double appliedT = newT - oldT;
             m.accumulatedTangentImpulse = newT;
+            change = Math.max(change, Math.abs(appliedT) * invSum);
 
-            _tmpA.setScale(tangent, appliedT);
-            _tmpB.setScale(_tmpA, invA);
-            a.vel.subLocal(_tmpB);
-            _tmpB.setScale(_tmpA, invB);
-            b.vel.addLocal(_tmpB);
+            tmpA.setScale(tangent, appliedT);
+            if (invA != 0) {
+                tmpB.setScale(tmpA, invA);
+                a.vel.subLocal(tmpB);
+            }
+            if (invB != 0) {
+                tmpB.setScale(tmpA, invB);
+                b.vel.addLocal(tmpB);
+            }
         }
+        return change;
     }
 
     private void releaseManifolds() {
-        for (Manifold m : frameManifolds) {
+        for (int i = 0, n = frameManifolds.size(); i < n; i++) {
+            Manifold m = frameManifolds.get(i);
             Manifold.release(m);
         }
         frameManifolds.clear();
@@ -0,0 +1,445 @@
+package physics.process;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+import physics.collisions.Broadphase;
+import physics.collisions.ChunkGridBroadphase;
+import physics.collisions.StaticGeometryIndex;
+import physics.objects.PhysicsBall;
+import physics.objects.PhysicsObject;
+import physics.objects.PhysicsRect;
+import physics.structures.Chunk;
+import physics.structures.ChunkMap;
+import physics.structures.CommandQueue;
+import physics.structures.Contact;
+import physics.structures.RenderBuffer;
+import physics.structures.RenderFrame;
+import physics.structures.Vector2;
+
+// the simulation without any drawing: objects, chunks, broadphase and the
+// updater. step() and step(n) advance it on the calling thread as fast as the
+// cpu allows, step(seconds) runs as many fixed steps as fit in the given game
+// time. beginUpdaterThread runs it against the wall clock instead.
+// PhysicsHandler adds the Swing rendering on top
+public class PhysicsWorld {
+
+    private final PhysicsUpdater updater = new PhysicsUpdater();
+
+    private ArrayList<PhysicsObject> updateObjects = new ArrayList<>();
+    private final RenderBuffer renderBuffer = new RenderBuffer(); // updater writes, render thread reads
+    private double pendingSteps = 0; // part of a step step(seconds) still owes
+
+    private ArrayList<PhysicsObject> staticObjects = new ArrayList<>();
+    private ArrayList<PhysicsObject> dynamicObjects = new ArrayList<>();
+
+    // additions, removals, moves and impulses from any thread, drained by the
+    // stepping thread at the start of each step
+    private final CommandQueue commands = new CommandQueue();
+    private final ArrayList<PhysicsObject> removed = new ArrayList<>(); // drain scratch
+    private static final Predicate<PhysicsObject> REMOVING = o -> o.hasWorldFlag(PhysicsObject.REMOVING);
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Thread updaterThread;
+
+    private final ChunkMap chunks = new ChunkMap();
+    public int chunkDimension = 25; // Chunk Dimension in pixels
+    public int chunkSweepBudget = 64; // chunks checked for reclamation per step
+
+    private Broadphase broadphase = new ChunkGridBroadphase(this);
+    private volatile Broadphase pendingBroadphase = null;
+    private StaticGeometryIndex staticIndex = StaticGeometryIndex.EMPTY;
+
+    public Vector2 gravity = new Vector2(0, 980);
+    private long nextId = 1; // handed out by the drain, in queue order
+
+    public PhysicsWorld() {
+        updater.setWorld(this);
+    }
+
+    // one fixed step
+    public void step() {
+        updater.step();
+    }
+
+    public void step(int steps) {
+        for (int i = 0; i < steps; i++)
+            updater.step();
+    }
+
+    // advance by seconds of game time in fixed steps, what is left over is
+    // carried into the next call. returns the number of steps taken
+    public int step(double seconds) {
+        pendingSteps += seconds * updater.getTickRate(); // 1.0 s at 60 Hz is exactly 60 steps
+        int n = 0;
+        while (pendingSteps >= 1) {
+            updater.step();
+            pendingSteps -= 1;
+            n++;
+        }
+        return n;
+    }
+
+    // game time simulated so far
+    public double getTime() {
+        return updater.getTime();
+    }
+
+    public void beginUpdaterThread() {
+        System.out.println("starting physics update thread");
+        if (updaterThread == null || !updaterThread.isAlive()) {
+            updaterThread = new Thread(updater, "Physics-Updater");
+            updaterThread.setDaemon(true);
+            updaterThread.start();
+        }
+    }
+
+    public void stopUpdaterThread() {
+
+        if (updater != null) {
+            updater.stop();
+        }
+    }
+
+    // pack every object into the next render frame and hand it to the render
+    // thread. runs on the thread that steps, updateObjects only changes there
+    public void publishFrame() {
+        publishFrame(System.nanoTime(), 0);
+    }
+
+    // time is the System.nanoTime the newest state stands for, tickNanos the
+    // step length, 0 when there is nothing to interpolate over
+    public void publishFrame(long time, long tickNanos) {
+        RenderFrame f = renderBuffer.back();
+        f.begin(updater.getStepCount(), time, tickNanos);
+        for (int i = 0, n = updateObjects.size(); i < n; i++)
+            updateObjects.get(i).packRenderState(f);
+        renderBuffer.publish();
+    }
+
+    // queued for the next step and applied in the order queued, so removing an
+    // object and adding it back before the step leaves it in the world. an add
+    // or remove that changes nothing is not queued. the id is assigned once
+    // the object goes in. adds and removes of the same object from several
+    // threads at once land in either order
+    public void addObject(PhysicsObject object) {
+        if (object.queueMembership(true))
+            commands.offer(CommandQueue.ADD, object, 0, 0);
+    }
+
+    public void removeObject(PhysicsObject object) {
+        if (object.queueMembership(false))
+            commands.offer(CommandQueue.REMOVE, object, 0, 0);
+    }
+
+    // new center for an object in the world, no interpolation across the jump
+    public void moveObject(PhysicsObject object, double x, double y) {
+        commands.offer(CommandQueue.MOVE, object, x, y);
+    }
+
+    public void applyImpulse(PhysicsObject object, double jx, double jy) {
+        commands.offer(CommandQueue.IMPULSE, object, jx, jy);
+    }
+
+    // runs the queued commands in the order they were queued
+    public void proccessAditionsAndRemovals() {
+        if (pendingBroadphase == null && commands.isEmpty())
+            return;
+
+        PhysicsEvents.Batch event = null;
+        if (PhysicsEvents.batchEnabled()) {
+            event = new PhysicsEvents.Batch();
+            event.begin();
+        }
+        int added = 0, removedCount = 0;
+
+        lock.writeLock().lock();
+
+        Broadphase next = pendingBroadphase;
+        if (next != null) {
+            pendingBroadphase = null;
+            broadphase.clear();
+            if (next != broadphase)
+                broadphase.shutdown();
+            broadphase = next;
+            for (PhysicsObject o : dynamicObjects) {
+                broadphase.add(o);
+            }
+        }
+
+        boolean staticsChanged = false;
+
+        CommandQueue.Command c;
+        while ((c = commands.poll()) != null) {
+            PhysicsObject o = c.object;
+            switch (c.type) {
+            case CommandQueue.ADD:
+                if (o.hasWorldFlag(PhysicsObject.IN_WORLD)) {
+                    o.membershipDrained();
+                    break;
+                }
+                if (o.hasWorldFlag(PhysicsObject.REMOVING))
+                    pruneRemoved(); // removed and added again in one drain
+                o.setWorldFlag(PhysicsObject.IN_WORLD, 0); // before the pending count drops
+                o.membershipDrained();
+                o.id = nextId++;
+                o.prevX = o.pos.x; // nothing to interpolate from yet
+                o.prevY = o.pos.y;
+                // statics never move, whatever their mass, the static index is
+                // only rebuilt when one is added, moved or removed
+                o.invMass = o.stationary ? 0 : o.getInverseMass();
+                updateObjects.add(o);
+                if (o.stationary) {
+                    staticObjects.add(o);
+                    staticsChanged = true;
+                } else {
+                    dynamicObjects.add(o);
+                    broadphase.add(o);
+                }
+                added++;
+                break;
+
+            case CommandQueue.REMOVE:
+                if (!o.hasWorldFlag(PhysicsObject.IN_WORLD)) {
+                    o.membershipDrained();
+                    break;
+                }
+                o.forceWake();
+                // release contacts owned by the removed object
+                for (Contact ct : o.contacts) {
+                    Contact.release(ct);
+                }
+                o.contacts.clear();
+                if (o.stationary) {
+                    staticsChanged = true;
+                    wakeObjectsTouching(o);
+                } else {
+                    broadphase.remove(o);
+                }
+                // taken out of the lists in one pass once the queue is drained
+                o.setWorldFlag(PhysicsObject.REMOVING, 0);
+                o.clearWorldFlags(PhysicsObject.IN_WORLD);
+                o.membershipDrained();
+                removed.add(o);
+                removedCount++;
+                break;
+
+            case CommandQueue.MOVE:
+                if (!o.hasWorldFlag(PhysicsObject.IN_WORLD))
+                    break;
+                o.pos.set(c.x, c.y);
+                o.prevX = c.x;
+                o.prevY = c.y;
+                if (o.stationary) {
+                    staticsChanged = true;
+                    wakeObjectsTouching(o);
+                } else {
+                    o.forceWake();
+                    o.forceWakeContacts(); // what rested on it, also when it was awake
+                }
+                break;
+
+            case CommandQueue.IMPULSE:
+                if (!o.hasWorldFlag(PhysicsObject.IN_WORLD) || o.stationary)
+                    break;
+                o.vel.x += c.x * o.invMass;
+                o.vel.y += c.y * o.invMass;
+                o.forceWake();
+                break;
+            }
+        }
+        pruneRemoved();
+
+        if (staticsChanged)
+            staticIndex = StaticGeometryIndex.build(staticObjects, chunkDimension);
+        lock.writeLock().unlock();
+
+        if (event != null && event.shouldCommit()) {
+            event.added = added;
+            event.removed = removedCount;
+            event.broadphaseSwapped = next != null;
+            event.staticsRebuilt = staticsChanged;
+            event.commit();
+        }
+
+    }
+
+    // one pass over each list instead of a remove per object
+    private void pruneRemoved() {
+        if (removed.isEmpty())
+            return;
+        updateObjects.removeIf(REMOVING);
+        staticObjects.removeIf(REMOVING);
+        dynamicObjects.removeIf(REMOVING);
+        for (int i = 0, n = removed.size(); i < n; i++)
+            removed.get(i).clearWorldFlags(PhysicsObject.REMOVING);
+        removed.clear();
+    }
+
+    // statics hold no contacts, sleeping objects still remember what they rest on
+    private void wakeObjectsTouching(PhysicsObject removedStatic) {
+        for (PhysicsObject o : dynamicObjects) {
+            for (Contact c : o.contacts) {
+                if (c.other == removedStatic) {
+                    o.forceWake();
+                    break;
+                }
+            }
+        }
+    }
+
+    public void addBall(Vector2 pos, int radius, double elasticity, double mass) {
+        PhysicsBall ball = new PhysicsBall(radius, elasticity, mass, 0);
+        ball.pos = pos;
+        addObject(ball);
+    }
+
+    public void addRect(Vector2 center, int width, int height) {
+        PhysicsRect rect = new PhysicsRect(width, height, 0, 0);
+        rect.pos = center;
+        addObject(rect);
+    }
+
+    public void addRect(Vector2 center, int width, int height, double mass, double elasticity, boolean stationary) {
+        PhysicsRect rect = new PhysicsRect(width, height, mass, 0);
+        rect.pos = center;
+        rect.elasticity = elasticity;
+        rect.stationary = stationary;
+        addObject(rect);
+    }
+
+    public ArrayList<PhysicsObject> getUpdateObjects() {
+        return updateObjects;
+    }
+
+    public List<PhysicsObject> getUpdateObjectsSnapshot() {
+        lock.readLock().lock();
+        try {
+            synchronized (updateObjects) {
+                return Collections.unmodifiableList(new ArrayList<>(updateObjects));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public ArrayList<PhysicsObject> getDynamicObjects() {
+        return dynamicObjects;
+    }
+
+    public List<PhysicsObject> getDynamicObjectsSnapshot() {
+        lock.readLock().lock();
+        try {
+            synchronized (dynamicObjects) {
+                return Collections.unmodifiableList(new ArrayList<>(dynamicObjects));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public ArrayList<PhysicsObject> getStaticObjects() {
+        return staticObjects;
+    }
+
+    public List<PhysicsObject> getStaticObjectsSnapshot() {
+        lock.readLock().lock();
+        try {
+            synchronized (staticObjects) {
+                return Collections.unmodifiableList(new ArrayList<>(staticObjects));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Broadphase getBroadphase() {
+        return broadphase;
+    }
+
+    // baked index over stationary objects, rebuilt when statics change
+    public StaticGeometryIndex getStaticIndex() {
+        return staticIndex;
+    }
+
+    // swapped in by the updater thread before the next step
+    public void setBroadphase(Broadphase broadphase) {
+        pendingBroadphase = broadphase;
+    }
+
+    // releases the broadphase's worker threads, including one still waiting
+    // to be swapped in
+    public void shutdown() {
+        broadphase.shutdown();
+        Broadphase next = pendingBroadphase;
+        if (next != null && next != broadphase)
+            next.shutdown();
+    }
+
+    public PhysicsUpdater getUpdater() {
+        return updater;
+    }
+
+    // newest published frame, for the render thread only
+    public RenderFrame getRenderFrame() {
+        return renderBuffer.acquire();
+    }
+
+    public List<PhysicsObject> getObjectsInChunk(int tileX, int tileY) {
+        return getObjectsInChunk(getChunk(tileX, tileY));
+    }
+
+    public List<PhysicsObject> getObjectsInChunk(Chunk c) {
+        if (c == null)
+            return new ArrayList<>();
+
+        lock.readLock().lock();
+        try {
+            List<PhysicsObject> result = new ArrayList<>(c.size());
+            for (int i = 0, n = c.size(); i < n; i++) {
+                PhysicsObject o = c.get(i);
+                if (o != null) // read while the updater may be swapping slots
+                    result.add(o);
+            }
+            return Collections.unmodifiableList(result);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // check for a chunk or add one to the map
+    public Chunk getOrCreateChunk(int cx, int cy) {
+        return chunks.getOrCreate(cx, cy);
+    }
+
+    // read-only lookup, null if nothing was ever registered there (or it was
+    // reclaimed)
+    public Chunk getChunk(int cx, int cy) {
+        return chunks.get(cx, cy);
+    }
+
+    // reclaim empty chunks, at most chunkSweepBudget visited per call
+    public int sweepEmptyChunks() {
+        return chunks.sweepEmpty(chunkSweepBudget);
+    }
+
+    public int getLiveChunkCount() {
+        return chunks.size();
+    }
+
+    public long getReclaimedChunkCount() {
+        return chunks.getReclaimedCount();
+    }
+
+    // get key for a chunk
+    public long keyFor(int cx, int cy) {
+        return ChunkMap.keyFor(cx, cy);
+    }
+
+    public ChunkMap getChunks() {
+        return chunks;
+    }
+}
@@ -0,0 +1,32 @@
+package physics.process;
+
+// one step's numbers for a PhysicsMetrics, filled in place by the updater
+public class StepStats {
+
+    public static final int PHASES = PhysicsMetrics.Phase.values().length;
+
+    public long step; // updater step count
+    public long stepNanos; // whole step
+    public final long[] phaseNanos = new long[PHASES]; // by Phase ordinal
+
+    public int bodies; // dynamic objects
+    public int awakeBodies;
+    public int statics;
+    public int candidatePairs; // pairs from the broadphase and static index
+    public int manifolds; // pairs that collided
+    public int solverIterations; // velocity passes, the most any island ran
+    public int positionIterations; // position correction passes
+    public int manifoldPool; // idle manifolds in the stepping thread's pool
+    public int contactPool; // idle contacts in the stepping thread's pool
+    public int chunks; // live chunks
+
+    public long phaseNanos(PhysicsMetrics.Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    void reset() {
+        java.util.Arrays.fill(phaseNanos, 0);
+        stepNanos = 0;
+        candidatePairs = 0;
+    }
+}
@@ -0,0 +1,33 @@
+package physics.structures;
+
+// axis aligned bounding box in world units
+public class AABB {
+    public double minX, minY, maxX, maxY;
+
+    public AABB() {
+    }
+
+    public AABB(double minX, double minY, double maxX, double maxY) {
+        set(minX, minY, maxX, maxY);
+    }
+
+    public AABB set(double minX, double minY, double maxX, double maxY) {
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        return this;
+    }
+
+    public AABB set(AABB o) {
+        return set(o.minX, o.minY, o.maxX, o.maxY);
+    }
+
+    public boolean overlaps(AABB o) {
+        return minX <= o.maxX && maxX >= o.minX && minY <= o.maxY && maxY >= o.minY;
+    }
+
+    public boolean contains(AABB o) {
+        return minX <= o.minX && minY <= o.minY && maxX >= o.maxX && maxY >= o.maxY;
+    }
+}
@@ -1,15 +1,61 @@
 package physics.structures;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import physics.objects.PhysicsObject;
 
 public class Chunk {
 
-    public List<PhysicsObject> objects = new ArrayList<>();
+    // objects registered here, packed. each entry remembers which entry of the
+    // object's chunkSlots points back at it, so removal is a swap with the last
+    private PhysicsObject[] objects = new PhysicsObject[8];
+    private int[] backRefs = new int[8];
+    private int size = 0;
+
+    public int cx, cy; // chunk coords
+    int denseIndex = -1; // position in ChunkMap dense list
 
     public Chunk() {
 
     }
-}
\ No newline at end of file
+
+    public Chunk(int cx, int cy) {
+        this.cx = cx;
+        this.cy = cy;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public PhysicsObject get(int i) {
+        return objects[i];
+    }
+
+    // register o, backRef is the index into o.chunkSlots that will hold the
+    // returned slot
+    public int add(PhysicsObject o, int backRef) {
+        if (size == objects.length) {
+            objects = java.util.Arrays.copyOf(objects, size << 1);
+            backRefs = java.util.Arrays.copyOf(backRefs, size << 1);
+        }
+        objects[size] = o;
+        backRefs[size] = backRef;
+        return size++;
+    }
+
+    // swap remove, the last object takes the slot and gets its back reference
+    // updated
+    public void removeAt(int slot) {
+        int last = --size;
+        if (slot != last) {
+            PhysicsObject moved = objects[last];
+            objects[slot] = moved;
+            backRefs[slot] = backRefs[last];
+            moved.chunkSlots[backRefs[slot]] = slot;
+        }
+        objects[last] = null;
+    }
+}
@@ -0,0 +1,222 @@
+package physics.structures;
+
+// open-addressing long -> Chunk table for the chunk grid
+// lookups never box or allocate, occupied chunks are also kept packed for
+// iteration
+public class ChunkMap {
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private Chunk[] values; // null == empty slot
+    private int mask;
+    private int resizeAt;
+
+    private Chunk[] dense; // occupied chunks, packed
+    private int size = 0;
+    private int sweepCursor = 0;
+
+    private long created = 0;
+    private long reclaimed = 0;
+
+    // reclaimed chunks kept for reuse, objects drifting across a chunk border
+    // would otherwise allocate a new chunk every time they come back
+    public static int MAX_FREE_CHUNKS = 256;
+    private Chunk[] free = new Chunk[16];
+    private int freeSize = 0;
+
+    public ChunkMap() {
+        this(1024);
+    }
+
+    public ChunkMap(int initialCapacity) {
+        int cap = 16;
+        while (cap * LOAD_FACTOR < initialCapacity)
+            cap <<= 1;
+        allocate(cap);
+        dense = new Chunk[Math.max(16, initialCapacity)];
+    }
+
+    // get key for a chunk
+    public static long keyFor(int cx, int cy) {
+        return ((long) cx << 32) ^ (cy & 0xffffffffL);
+    }
+
+    public Chunk get(int cx, int cy) {
+        return get(keyFor(cx, cy));
+    }
+
+    public Chunk get(long key) {
+        int i = slot(key);
+        Chunk c;
+        while ((c = values[i]) != null) {
+            if (keys[i] == key)
+                return c;
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    public Chunk getOrCreate(int cx, int cy) {
+        long key = keyFor(cx, cy);
+        int i = slot(key);
+        Chunk c;
+        while ((c = values[i]) != null) {
+            if (keys[i] == key)
+                return c;
+            i = (i + 1) & mask;
+        }
+
+        if (freeSize > 0) {
+            c = free[--freeSize];
+            free[freeSize] = null;
+            c.cx = cx;
+            c.cy = cy;
+        } else {
+            c = new Chunk(cx, cy);
+        }
+        keys[i] = key;
+        values[i] = c;
+        addDense(c);
+        created++;
+        if (size >= resizeAt)
+            rehash(values.length << 1);
+        return c;
+    }
+
+    public Chunk remove(int cx, int cy) {
+        return remove(keyFor(cx, cy));
+    }
+
+    public Chunk remove(long key) {
+        int i = slot(key);
+        Chunk c;
+        while ((c = values[i]) != null) {
+            if (keys[i] == key) {
+                removeSlot(i);
+                removeDense(c);
+                return c;
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    // visit up to budget chunks, round robin, and reclaim the empty ones
+    // returns the number of chunks reclaimed
+    public int sweepEmpty(int budget) {
+        int removed = 0;
+        for (int n = 0; n < budget && size > 0; n++) {
+            if (sweepCursor >= size)
+                sweepCursor = 0;
+            Chunk c = dense[sweepCursor];
+            if (c.isEmpty()) {
+                remove(keyFor(c.cx, c.cy)); // last dense chunk moves into the cursor
+                recycle(c);
+                reclaimed++;
+                removed++;
+            } else {
+                sweepCursor++;
+            }
+        }
+        return removed;
+    }
+
+    // number of occupied chunks
+    public int size() {
+        return size;
+    }
+
+    // chunks created since construction
+    public long getCreatedCount() {
+        return created;
+    }
+
+    // empty chunks reclaimed by sweepEmpty since construction
+    public long getReclaimedCount() {
+        return reclaimed;
+    }
+
+    // occupied chunk at dense index i, 0 <= i < size()
+    public Chunk getAt(int i) {
+        return dense[i];
+    }
+
+    public void clear() {
+        java.util.Arrays.fill(values, null);
+        java.util.Arrays.fill(dense, 0, size, null);
+        size = 0;
+        sweepCursor = 0;
+    }
+
+    private void recycle(Chunk c) {
+        if (freeSize == MAX_FREE_CHUNKS)
+            return;
+        if (freeSize == free.length)
+            free = java.util.Arrays.copyOf(free, freeSize << 1);
+        free[freeSize++] = c;
+    }
+
+    // backward shift deletion, keeps probe chains intact without tombstones
+    private void removeSlot(int i) {
+        values[i] = null;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (values[j] == null)
+                return;
+            int k = slot(keys[j]);
+            boolean inChain = (i <= j) ? (i < k && k <= j) : (i < k || k <= j);
+            if (inChain)
+                continue;
+            keys[i] = keys[j];
+            values[i] = values[j];
+            values[j] = null;
+            i = j;
+        }
+    }
+
+    private void removeDense(Chunk c) {
+        int idx = c.denseIndex;
+        Chunk last = dense[--size];
+        dense[idx] = last;
+        last.denseIndex = idx;
+        dense[size] = null;
+        c.denseIndex = -1;
+    }
+
+    private void addDense(Chunk c) {
+        if (size == dense.length)
+            dense = java.util.Arrays.copyOf(dense, size << 1);
+        c.denseIndex = size;
+        dense[size++] = c;
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L; // fibonacci hashing spreads neighbouring cells
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Chunk[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Chunk[] oldValues = values;
+        allocate(capacity);
+        for (int j = 0; j < oldValues.length; j++) {
+            Chunk c = oldValues[j];
+            if (c == null)
+                continue;
+            int i = slot(oldKeys[j]);
+            while (values[i] != null)
+                i = (i + 1) & mask;
+            keys[i] = oldKeys[j];
+            values[i] = c;
+        }
+    }
+}
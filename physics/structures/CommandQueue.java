@@ -0,0 +1,62 @@
+package physics.structures;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import physics.objects.PhysicsObject;
+
+// lock free queue of world changes, any number of threads offer and only the
+// stepping thread polls. a linked list after Vyukov's MPSC queue: a producer
+// swaps its command in as the tail with one getAndSet and then links the old
+// tail to it, the consumer follows the links from a stub head. a command whose
+// producer is between those two writes is not visible yet and is picked up by
+// the next drain
+public class CommandQueue {
+
+    public static final int ADD = 0;
+    public static final int REMOVE = 1;
+    public static final int MOVE = 2; // x, y is the new center
+    public static final int IMPULSE = 3; // x, y is the impulse
+
+    public static final class Command {
+        public final int type;
+        public final PhysicsObject object;
+        public final double x, y;
+        volatile Command next;
+
+        Command(int type, PhysicsObject object, double x, double y) {
+            this.type = type;
+            this.object = object;
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    private final AtomicReference<Command> tail;
+    private Command head; // consumer only, the last polled command stays as the stub
+
+    public CommandQueue() {
+        head = new Command(-1, null, 0, 0);
+        tail = new AtomicReference<>(head);
+    }
+
+    // any thread
+    public void offer(int type, PhysicsObject object, double x, double y) {
+        Command c = new Command(type, object, x, y);
+        Command prev = tail.getAndSet(c);
+        prev.next = c;
+    }
+
+    // consumer only, null when nothing is visible yet
+    public Command poll() {
+        Command next = head.next;
+        if (next == null)
+            return null;
+        head = next;
+        return next;
+    }
+
+    // consumer only
+    public boolean isEmpty() {
+        return head.next == null;
+    }
+}
@@ -4,26 +4,35 @@ import physics.objects.PhysicsObject;
 
 public class Contact {
     public PhysicsObject other;
-    public Vector2 normal; // normal pointing from other -> this
+    public final Vector2 normal = new Vector2(); // normal pointing from other -> this
     public double penetration;
 
-    // Simple object pool
-    private static final java.util.ArrayDeque<Contact> POOL = new java.util.ArrayDeque<>();
+    // Simple object pool, one per thread like Manifold's
+    private static final ThreadLocal<java.util.ArrayDeque<Contact>> POOL = ThreadLocal
+            .withInitial(java.util.ArrayDeque::new);
+    private java.util.ArrayDeque<Contact> owner;
 
     public static Contact obtain() {
-        Contact c = POOL.pollLast();
+        java.util.ArrayDeque<Contact> pool = POOL.get();
+        Contact c = pool.pollLast();
         if (c == null) {
             c = new Contact();
+            c.owner = pool;
         }
         return c;
     }
 
+    // idle objects in the calling thread's pool
+    public static int poolSize() {
+        return POOL.get().size();
+    }
+
     public static void release(Contact c) {
         if (c == null)
             return;
         c.other = null;
-        c.normal = null;
+        c.normal.set(0, 0);
         c.penetration = 0.0;
-        POOL.addLast(c);
+        c.owner.addLast(c);
     }
 }
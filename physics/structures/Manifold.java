@@ -12,32 +12,64 @@ public class Manifold {
 
     public double accumulatedNormalImpulse = 0.0;
     public double accumulatedTangentImpulse = 0.0;
+    public final Vector2 tangent = new Vector2(); // direction of accumulatedTangentImpulse
+    public double warmNormalImpulse = 0.0; // part of the normal impulse that came from the cache
+    public boolean bounced = false; // restitution applied this step
 
     public boolean collided;
-    public Vector2 normal;
+    public final Vector2 normal = new Vector2(); // written in place, o2 -> o1 from the tests
     public double penetration;
     public List<Vector2> contacts = new ArrayList<>();
+    private Vector2[] points = { new Vector2(), new Vector2() }; // storage behind contacts
 
-    // simple object pool for Manifold
-    private static final java.util.ArrayDeque<Manifold> POOL = new java.util.ArrayDeque<>();
+    // object pool per thread, so narrowphase workers and separate worlds never
+    // share a deque. a manifold returns to the pool it came from, releases must
+    // not overlap with the owner thread obtaining (the updater releases after
+    // the narrowphase workers joined)
+    private static final ThreadLocal<java.util.ArrayDeque<Manifold>> POOL = ThreadLocal
+            .withInitial(java.util.ArrayDeque::new);
+    private java.util.ArrayDeque<Manifold> owner;
 
     public static Manifold obtain() {
-        Manifold m = POOL.pollLast();
+        java.util.ArrayDeque<Manifold> pool = POOL.get();
+        Manifold m = pool.pollLast();
         if (m == null) {
             m = new Manifold();
+            m.owner = pool;
         }
         // reset fields
         m.o1 = null;
         m.o2 = null;
         m.accumulatedNormalImpulse = 0.0;
         m.accumulatedTangentImpulse = 0.0;
+        m.tangent.set(0, 0);
+        m.warmNormalImpulse = 0.0;
+        m.bounced = false;
         m.collided = false;
-        m.normal = null;
+        m.normal.set(0, 0);
         m.penetration = 0.0;
         m.contacts.clear();
         return m;
     }
 
+    // adds a contact point backed by this manifold's own storage
+    public Vector2 addContactPoint(double x, double y) {
+        int i = contacts.size();
+        if (i == points.length) {
+            points = java.util.Arrays.copyOf(points, i << 1);
+            for (int k = i; k < points.length; k++)
+                points[k] = new Vector2();
+        }
+        Vector2 p = points[i].set(x, y);
+        contacts.add(p);
+        return p;
+    }
+
+    // idle objects in the calling thread's pool
+    public static int poolSize() {
+        return POOL.get().size();
+    }
+
     public static void release(Manifold m) {
         if (m == null)
             return;
@@ -45,10 +77,13 @@ public class Manifold {
         m.o2 = null;
         m.accumulatedNormalImpulse = 0.0;
         m.accumulatedTangentImpulse = 0.0;
+        m.tangent.set(0, 0);
+        m.warmNormalImpulse = 0.0;
+        m.bounced = false;
         m.collided = false;
-        m.normal = null;
+        m.normal.set(0, 0);
         m.penetration = 0.0;
         m.contacts.clear();
-        POOL.addLast(m);
+        m.owner.addLast(m);
     }
 }
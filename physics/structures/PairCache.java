@@ -0,0 +1,194 @@
+package physics.structures;
+
+// persistent per pair solver state, keyed by the unordered pair of object ids
+// open addressing over primitive arrays, nothing is allocated once the table
+// has grown to the scene's contact count
+public class PairCache {
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private boolean[] used;
+    private int[] stamp; // step the entry was last stored
+    private double[] normalImpulse, tangentImpulse;
+    private double[] normalX, normalY, tangentX, tangentY;
+    private int mask;
+    private int resizeAt;
+    private int size = 0;
+
+    public PairCache() {
+        this(1024);
+    }
+
+    public PairCache(int initialCapacity) {
+        int cap = 16;
+        while (cap * LOAD_FACTOR < initialCapacity)
+            cap <<= 1;
+        allocate(cap);
+    }
+
+    public static long keyFor(long idA, long idB) {
+        long a = Math.min(idA, idB);
+        long b = Math.max(idA, idB);
+        return (a << 32) | (b & 0xffffffffL);
+    }
+
+    // slot holding key, or -1
+    public int find(long key) {
+        int i = slot(key);
+        while (used[i]) {
+            if (keys[i] == key)
+                return i;
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    public double normalImpulse(int slot) {
+        return normalImpulse[slot];
+    }
+
+    public double tangentImpulse(int slot) {
+        return tangentImpulse[slot];
+    }
+
+    public double normalX(int slot) {
+        return normalX[slot];
+    }
+
+    public double normalY(int slot) {
+        return normalY[slot];
+    }
+
+    public double tangentX(int slot) {
+        return tangentX[slot];
+    }
+
+    public double tangentY(int slot) {
+        return tangentY[slot];
+    }
+
+    public void store(long key, int step, double jn, double jt, double nx, double ny, double tx, double ty) {
+        int i = slot(key);
+        while (used[i]) {
+            if (keys[i] == key)
+                break;
+            i = (i + 1) & mask;
+        }
+        if (!used[i]) {
+            used[i] = true;
+            keys[i] = key;
+            if (++size >= resizeAt) {
+                rehash(used.length << 1);
+                store(key, step, jn, jt, nx, ny, tx, ty);
+                return;
+            }
+        }
+        stamp[i] = step;
+        normalImpulse[i] = jn;
+        tangentImpulse[i] = jt;
+        normalX[i] = nx;
+        normalY[i] = ny;
+        tangentX[i] = tx;
+        tangentY[i] = ty;
+    }
+
+    // drop every pair that was not stored during step, returns how many
+    public int evictStale(int step) {
+        int evicted = 0;
+        int i = 0;
+        while (i < used.length) {
+            if (used[i] && stamp[i] != step) {
+                removeSlot(i); // an entry may shift into i, check it again
+                evicted++;
+            } else {
+                i++;
+            }
+        }
+        return evicted;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        java.util.Arrays.fill(used, false);
+        size = 0;
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    // backward shift deletion, same scheme as ChunkMap
+    private void removeSlot(int i) {
+        used[i] = false;
+        size--;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (!used[j])
+                return;
+            int k = slot(keys[j]);
+            boolean inChain = (i <= j) ? (i < k && k <= j) : (i < k || k <= j);
+            if (inChain)
+                continue;
+            move(j, i);
+            used[j] = false;
+            i = j;
+        }
+    }
+
+    private void move(int from, int to) {
+        used[to] = true;
+        keys[to] = keys[from];
+        stamp[to] = stamp[from];
+        normalImpulse[to] = normalImpulse[from];
+        tangentImpulse[to] = tangentImpulse[from];
+        normalX[to] = normalX[from];
+        normalY[to] = normalY[from];
+        tangentX[to] = tangentX[from];
+        tangentY[to] = tangentY[from];
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        used = new boolean[capacity];
+        stamp = new int[capacity];
+        normalImpulse = new double[capacity];
+        tangentImpulse = new double[capacity];
+        normalX = new double[capacity];
+        normalY = new double[capacity];
+        tangentX = new double[capacity];
+        tangentY = new double[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        boolean[] oldUsed = used;
+        int[] oldStamp = stamp;
+        double[] oldN = normalImpulse, oldT = tangentImpulse;
+        double[] oldNx = normalX, oldNy = normalY, oldTx = tangentX, oldTy = tangentY;
+        allocate(capacity);
+        for (int j = 0; j < oldUsed.length; j++) {
+            if (!oldUsed[j])
+                continue;
+            int i = slot(oldKeys[j]);
+            while (used[i])
+                i = (i + 1) & mask;
+            used[i] = true;
+            keys[i] = oldKeys[j];
+            stamp[i] = oldStamp[j];
+            normalImpulse[i] = oldN[j];
+            tangentImpulse[i] = oldT[j];
+            normalX[i] = oldNx[j];
+            normalY[i] = oldNy[j];
+            tangentX[i] = oldTx[j];
+            tangentY[i] = oldTy[j];
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package physics.structures;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// triple buffer of render frames between one writer and one reader
+// the writer fills back() and publishes it, the reader takes the newest
+// published frame. the middle frame is swapped with a single getAndSet on
+// either side, so neither side locks, waits or allocates, and the frame the
+// reader holds is never the one being written
+public class RenderBuffer {
+
+    private static final int FRESH = 4; // middle holds a frame the reader has not taken
+
+    private final RenderFrame[] frames = { new RenderFrame(), new RenderFrame(), new RenderFrame() };
+    private final AtomicInteger middle = new AtomicInteger(1);
+    private int back = 0; // writer side
+    private int front = 2; // reader side
+
+    // frame the writer fills next
+    public RenderFrame back() {
+        return frames[back];
+    }
+
+    // hand the filled back frame over, the old middle becomes the new back
+    public void publish() {
+        back = middle.getAndSet(back | FRESH) & 3;
+    }
+
+    // newest published frame, the same one again until the writer publishes
+    public RenderFrame acquire() {
+        if ((middle.get() & FRESH) != 0)
+            front = middle.getAndSet(front) & 3;
+        return frames[front];
+    }
+}
@@ -0,0 +1,113 @@
+package physics.structures;
+
+import java.util.Arrays;
+
+import physics.objects.PhysicsObject;
+
+// everything the renderer needs from one step, packed into primitive arrays
+// filled by the updater thread after a step and handed over through a
+// RenderBuffer, readers never write to a frame they got from it.
+// colors are ARGB ints, debug colors are what drawDebug used to pick
+public class RenderFrame {
+
+    // shapes, w and h are the radius for circles and the size for rects
+    public static final byte CIRCLE = 0;
+    public static final byte RECT = 1;
+
+    // flags
+    public static final byte FILLED = 1; // areas only draw the outline
+
+    public long step = -1; // updater step this frame was packed after
+    public long time = 0; // System.nanoTime the packed state stands for
+    public long tickNanos = 0; // step length, 0 draws the packed state as is
+    public byte[] shape, flags;
+    public double[] x, y, w, h;
+    public double[] prevX, prevY; // position one step earlier
+    public int[] fill, outline, debugFill, debugOutline;
+    public int[] chunks; // cMinCx, cMaxCx, cMinCy, cMaxCy per object, for view culling
+    private int size = 0;
+
+    public RenderFrame() {
+        this(1024);
+    }
+
+    public RenderFrame(int capacity) {
+        allocate(Math.max(16, capacity));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void begin(long step, long time, long tickNanos) {
+        this.step = step;
+        this.time = time;
+        this.tickNanos = tickNanos;
+        size = 0;
+    }
+
+    // how far to go from prev to the packed position when drawing at now,
+    // the drawn state trails the simulation by one step
+    public double alphaAt(long now) {
+        if (tickNanos <= 0)
+            return 1.0;
+        double alpha = (double) (now - time) / tickNanos;
+        return alpha < 0 ? 0 : alpha > 1 ? 1 : alpha;
+    }
+
+    public void add(PhysicsObject o, byte shape, byte flags, double w, double h, int fill, int outline,
+            int debugFill, int debugOutline) {
+        if (size == x.length)
+            grow(size << 1);
+        int k = size++;
+        this.shape[k] = shape;
+        this.flags[k] = flags;
+        x[k] = o.pos.x;
+        y[k] = o.pos.y;
+        prevX[k] = o.prevX;
+        prevY[k] = o.prevY;
+        this.w[k] = w;
+        this.h[k] = h;
+        this.fill[k] = fill;
+        this.outline[k] = outline;
+        this.debugFill[k] = debugFill;
+        this.debugOutline[k] = debugOutline;
+        int c = k << 2;
+        chunks[c] = o.cMinCx;
+        chunks[c + 1] = o.cMaxCx;
+        chunks[c + 2] = o.cMinCy;
+        chunks[c + 3] = o.cMaxCy;
+    }
+
+    private void allocate(int capacity) {
+        shape = new byte[capacity];
+        flags = new byte[capacity];
+        x = new double[capacity];
+        y = new double[capacity];
+        prevX = new double[capacity];
+        prevY = new double[capacity];
+        w = new double[capacity];
+        h = new double[capacity];
+        fill = new int[capacity];
+        outline = new int[capacity];
+        debugFill = new int[capacity];
+        debugOutline = new int[capacity];
+        chunks = new int[capacity << 2];
+    }
+
+    private void grow(int capacity) {
+        shape = Arrays.copyOf(shape, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        prevX = Arrays.copyOf(prevX, capacity);
+        prevY = Arrays.copyOf(prevY, capacity);
+        w = Arrays.copyOf(w, capacity);
+        h = Arrays.copyOf(h, capacity);
+        fill = Arrays.copyOf(fill, capacity);
+        outline = Arrays.copyOf(outline, capacity);
+        debugFill = Arrays.copyOf(debugFill, capacity);
+        debugOutline = Arrays.copyOf(debugOutline, capacity);
+        chunks = Arrays.copyOf(chunks, capacity << 2);
+    }
+}
@@ -0,0 +1,288 @@
+package src;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import physics.process.PhysicsMetrics;
+import physics.process.PhysicsUpdater;
+import physics.process.StepStats;
+
+// in canvas profiler overlay. frame times come from the render loop, step
+// times, phases and counts from the updater through PhysicsMetrics, only
+// while the overlay is shown. text is formatted into a char buffer and the
+// graphs are plain lines, nothing here allocates once constructed
+public class ProfilerHud implements PhysicsMetrics {
+
+    static final int HISTORY = 240; // samples per graph, one pixel each
+    static final int GRAPH_HEIGHT = 48;
+    static final long GRAPH_CEILING = 33_333_333L; // two 60 Hz frames fill a graph
+    static final long BUDGET = 16_666_667L; // marked on both graphs
+    static final double SMOOTHING = 0.05; // weight of the newest step in the phase bars
+    static final int LINE = 14;
+
+    private static final Font FONT = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+    private static final Color PANEL = new Color(0, 0, 0, 170);
+    private static final Color TEXT = new Color(220, 220, 220);
+    private static final Color FRAME = new Color(90, 200, 120);
+    private static final Color STEP = new Color(90, 160, 230);
+    private static final Color OVER = new Color(230, 90, 70);
+    private static final Color GC = new Color(240, 200, 60);
+    private static final Color BUDGET_LINE = new Color(255, 255, 255, 90);
+    private static final Color[] PHASE_COLORS = {
+            new Color(141, 211, 199), new Color(255, 255, 179), new Color(190, 186, 218),
+            new Color(251, 128, 114), new Color(128, 177, 211), new Color(253, 180, 98),
+            new Color(179, 222, 105), new Color(252, 205, 229) };
+
+    private static final char[] FRAME_LABEL = "frame".toCharArray();
+    private static final char[] STEP_LABEL = "step ".toCharArray();
+    private static final char[] P50 = "  p50 ".toCharArray();
+    private static final char[] P99 = "  p99 ".toCharArray();
+    private static final char[] MS = " ms".toCharArray();
+    private static final char[] AWAKE = "awake ".toCharArray();
+    private static final char[] SLEEPING = "  sleeping ".toCharArray();
+    private static final char[] STATIC = "static ".toCharArray();
+    private static final char[] CHUNKS = "  chunks ".toCharArray();
+    private static final char[] ITERATIONS = "iterations  velocity ".toCharArray();
+    private static final char[] POSITION = "  position ".toCharArray();
+    private static final char[] LAST_GC = "last gc ".toCharArray();
+    private static final char[] NO_GC = "no gc yet".toCharArray();
+    private static final char[][] PHASE_NAMES = new char[StepStats.PHASES][];
+
+    static {
+        for (Phase p : Phase.values())
+            PHASE_NAMES[p.ordinal()] = String.format("%-22s", p.name().toLowerCase().replace('_', ' ')).toCharArray();
+    }
+
+    public boolean visible = false;
+    private volatile PhysicsMetrics previous = null; // sink installed before the overlay, still fed
+
+    // render thread
+    private final long[] frameNanos = new long[HISTORY];
+    private final boolean[] frameGc = new boolean[HISTORY]; // a collection ended before this frame
+    private long frames = 0;
+    private final long[] sorted = new long[HISTORY];
+    private final char[] text = new char[96];
+    private final GarbageCollectorMXBean[] collectors;
+    private long gcCount = -1, gcMillis = 0;
+    private long lastGcPauseMillis = -1;
+
+    // written by the updater thread, published through steps
+    private final long[] stepNanos = new long[HISTORY];
+    private final double[] phaseAverage = new double[StepStats.PHASES];
+    private double stepAverage = 0;
+    private int bodies, awake, statics, chunks, solverIterations, positionIterations;
+    private volatile long steps = 0;
+
+    public ProfilerHud() {
+        collectors = ManagementFactory.getGarbageCollectorMXBeans().toArray(new GarbageCollectorMXBean[0]);
+    }
+
+    // shows or hides the overlay. a sink already on the updater keeps getting
+    // every step through the overlay and is put back when it hides
+    public void toggle(PhysicsUpdater updater) {
+        visible = !visible;
+        if (visible) {
+            previous = updater.metrics;
+            updater.metrics = this;
+        } else {
+            if (updater.metrics == this)
+                updater.metrics = previous;
+            previous = null;
+        }
+    }
+
+    // render loop, once per frame
+    public void frame(long nanos) {
+        int k = (int) (frames++ % HISTORY);
+        frameNanos[k] = nanos;
+        frameGc[k] = visible && pollGc();
+    }
+
+    @Override
+    public void stepCompleted(StepStats s) {
+        long n = steps;
+        stepNanos[(int) (n % HISTORY)] = s.stepNanos;
+        double a = n == 0 ? 1.0 : SMOOTHING;
+        for (int i = 0; i < phaseAverage.length; i++)
+            phaseAverage[i] += (s.phaseNanos[i] - phaseAverage[i]) * a;
+        stepAverage += (s.stepNanos - stepAverage) * a;
+        bodies = s.bodies;
+        awake = s.awakeBodies;
+        statics = s.statics;
+        chunks = s.chunks;
+        solverIterations = s.solverIterations;
+        positionIterations = s.positionIterations;
+        steps = n + 1;
+        PhysicsMetrics next = previous;
+        if (next != null)
+            next.stepCompleted(s);
+    }
+
+    public void draw(Graphics2D g, int x, int y) {
+        if (!visible)
+            return;
+        long stepCount = steps; // read first, the updater writes it last
+
+        int width = HISTORY + 20;
+        int height = 2 * (4 + GRAPH_HEIGHT + LINE) + 4 + (5 + StepStats.PHASES) * LINE + 6;
+        g.setColor(PANEL);
+        g.fillRect(x, y, width, height);
+        g.setFont(FONT);
+        int left = x + 10;
+        int row = y + LINE;
+
+        // frame times
+        int n = (int) Math.min(frames, HISTORY);
+        row = percentiles(g, FRAME_LABEL, frameNanos, n, left, row);
+        graph(g, frameNanos, frameGc, frames, left, row, FRAME);
+        row += GRAPH_HEIGHT + LINE;
+
+        // step times
+        n = (int) Math.min(stepCount, HISTORY);
+        row = percentiles(g, STEP_LABEL, stepNanos, n, left, row);
+        graph(g, stepNanos, null, stepCount, left, row, STEP);
+        row += GRAPH_HEIGHT + LINE;
+
+        // phases, one stacked bar over the average step, then the legend
+        double total = Math.max(1, stepAverage);
+        int bx = left;
+        row += 4;
+        for (int i = 0; i < phaseAverage.length; i++) {
+            int w = (int) Math.round(phaseAverage[i] / total * HISTORY);
+            g.setColor(PHASE_COLORS[i]);
+            g.fillRect(bx, row - 8, w, 8);
+            bx += w;
+        }
+        row += LINE;
+        for (int i = 0; i < phaseAverage.length; i++) {
+            g.setColor(PHASE_COLORS[i]);
+            g.fillRect(left, row - 9, 8, 8);
+            int len = append(text, 0, PHASE_NAMES[i]);
+            len = appendMillis(text, len, (long) phaseAverage[i]);
+            len = append(text, len, MS);
+            g.setColor(TEXT);
+            g.drawChars(text, 0, len, left + 12, row);
+            row += LINE;
+        }
+
+        // counts
+        int len = append(text, 0, AWAKE);
+        len = appendLong(text, len, awake);
+        len = append(text, len, SLEEPING);
+        len = appendLong(text, len, bodies - awake);
+        g.drawChars(text, 0, len, left, row);
+        row += LINE;
+        len = append(text, 0, STATIC);
+        len = appendLong(text, len, statics);
+        len = append(text, len, CHUNKS);
+        len = appendLong(text, len, chunks);
+        g.drawChars(text, 0, len, left, row);
+        row += LINE;
+        len = append(text, 0, ITERATIONS);
+        len = appendLong(text, len, solverIterations);
+        len = append(text, len, POSITION);
+        len = appendLong(text, len, positionIterations);
+        g.drawChars(text, 0, len, left, row);
+        row += LINE;
+        if (lastGcPauseMillis < 0) {
+            len = append(text, 0, NO_GC);
+        } else {
+            len = append(text, 0, LAST_GC);
+            len = appendLong(text, len, lastGcPauseMillis);
+            len = append(text, len, MS);
+        }
+        g.setColor(GC);
+        g.drawChars(text, 0, len, left, row);
+    }
+
+    // "label  p50 x ms  p99 y ms" over the newest n samples
+    private int percentiles(Graphics2D g, char[] label, long[] samples, int n, int x, int row) {
+        int len = append(text, 0, label);
+        if (n > 0) {
+            System.arraycopy(samples, 0, sorted, 0, n);
+            Arrays.sort(sorted, 0, n);
+            len = append(text, len, P50);
+            len = appendMillis(text, len, sorted[n / 2]);
+            len = append(text, len, P99);
+            len = appendMillis(text, len, sorted[Math.min(n - 1, (int) (n * 0.99))]);
+            len = append(text, len, MS);
+        }
+        g.setColor(TEXT);
+        g.drawChars(text, 0, len, x, row);
+        return row + 4;
+    }
+
+    // one vertical line per sample, oldest on the left, over budget in red
+    private void graph(Graphics2D g, long[] samples, boolean[] marks, long count, int x, int top, Color color) {
+        int bottom = top + GRAPH_HEIGHT;
+        int n = (int) Math.min(count, HISTORY);
+        for (int i = 0; i < n; i++) {
+            int k = (int) ((count - n + i) % HISTORY);
+            int px = x + HISTORY - n + i;
+            if (marks != null && marks[k]) {
+                g.setColor(GC);
+                g.drawLine(px, top, px, bottom);
+            }
+            long v = Math.min(samples[k], GRAPH_CEILING);
+            int h = (int) (v * GRAPH_HEIGHT / GRAPH_CEILING);
+            g.setColor(samples[k] > BUDGET ? OVER : color);
+            g.drawLine(px, bottom, px, bottom - h);
+        }
+        int budget = bottom - (int) (BUDGET * GRAPH_HEIGHT / GRAPH_CEILING);
+        g.setColor(BUDGET_LINE);
+        g.drawLine(x, budget, x + HISTORY, budget);
+    }
+
+    // true when a collection finished since the last poll
+    private boolean pollGc() {
+        long count = 0, millis = 0;
+        for (GarbageCollectorMXBean c : collectors) {
+            count += Math.max(0, c.getCollectionCount());
+            millis += Math.max(0, c.getCollectionTime());
+        }
+        boolean collected = gcCount >= 0 && count > gcCount;
+        if (collected)
+            lastGcPauseMillis = millis - gcMillis;
+        gcCount = count;
+        gcMillis = millis;
+        return collected;
+    }
+
+    private static int append(char[] buf, int pos, char[] s) {
+        System.arraycopy(s, 0, buf, pos, s.length);
+        return pos + s.length;
+    }
+
+    private static int appendLong(char[] buf, int pos, long v) {
+        if (v < 0) {
+            buf[pos++] = '-';
+            v = -v;
+        }
+        int start = pos;
+        do {
+            buf[pos++] = (char) ('0' + v % 10);
+            v /= 10;
+        } while (v > 0);
+        for (int i = start, j = pos - 1; i < j; i++, j--) {
+            char c = buf[i];
+            buf[i] = buf[j];
+            buf[j] = c;
+        }
+        return pos;
+    }
+
+    // nanoseconds as milliseconds with two decimals
+    private static int appendMillis(char[] buf, int pos, long nanos) {
+        long hundredths = (nanos + 5_000) / 10_000;
+        pos = appendLong(buf, pos, hundredths / 100);
+        buf[pos++] = '.';
+        long frac = hundredths % 100;
+        buf[pos++] = (char) ('0' + frac / 10);
+        buf[pos++] = (char) ('0' + frac % 10);
+        return pos;
+    }
+}
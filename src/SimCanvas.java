@@ -28,6 +28,7 @@ public class SimCanvas extends Canvas implements Runnable {
     private Vector2 mousePos = new Vector2();
 
     private PhysicsHandler handler = new PhysicsHandler();
+    private final ProfilerHud hud = new ProfilerHud(); // H toggles it
 
     private boolean leftClick = false;
     private boolean rightClick = false;
@@ -56,6 +57,11 @@ public class SimCanvas extends Canvas implements Runnable {
         this.addMouseListener(new MyMouseAdapter());
         this.addMouseMotionListener(new MyMouseMotionAdapter());
 
+        // -Dphysics.tickRate=30 halves the physics cost, frames are interpolated
+        handler.getUpdater().setTickRate(Double.parseDouble(System.getProperty("physics.tickRate", "60")));
+        // -Dphysics.unthrottled=true steps as fast as it can, game time runs ahead of the clock
+        handler.getUpdater().UNTHROTTLED = Boolean.getBoolean("physics.unthrottled");
+
         setUpSim();
     }
 
@@ -100,9 +106,11 @@ public class SimCanvas extends Canvas implements Runnable {
     @Override
     public void run() {
 
+        lastTime = System.nanoTime(); // the first frame measures from here
         while (running) {
             long now = System.nanoTime();
             double dt = (now - lastTime) * 1e-9f; // seconds
+            hud.frame(now - lastTime);
             lastTime = now;
             dt = Math.min(dt, 0.25); // avoid large jump
 
@@ -123,7 +131,7 @@ public class SimCanvas extends Canvas implements Runnable {
 
                 JFrame frame = (JFrame) SwingUtilities.getWindowAncestor(this);
                 frame.setTitle("Project | FPS: " + fps + " | TPS: " + handler.getUpdater().getUps() + " | Count: "
-                        + handler.getUpdateObjectsSnapshot().size());
+                        + handler.getUpdateObjects().size()); // no snapshot copy just to count
             }
         }
     }
@@ -150,6 +158,7 @@ public class SimCanvas extends Canvas implements Runnable {
                     } else {
                         handler.render(g);
                     }
+                    hud.draw(g, 10, 10);
 
                 } finally {
                     g.dispose();
@@ -248,10 +257,10 @@ public class SimCanvas extends Canvas implements Runnable {
                     }
                 } else {
                     if (handler.display.mainObject != null)
-                        handler.display.mainObject.setDisplayColor(Color.white);
+                        handler.display.mainObject.setDisplayColor(Color.white.getRGB());
                     PhysicsBall b = new PhysicsBall(10, 0.8, 0.05, 0);
                     b.pos = handler.display.getMapPos(mousePos);
-                    b.setDisplayColor(Color.red);
+                    b.setDisplayColor(Color.red.getRGB());
                     handler.addObject(b);
                     handler.display.mainObject = b;
                 }
@@ -272,6 +281,9 @@ public class SimCanvas extends Canvas implements Runnable {
             if (e.getKeyCode() == KeyEvent.VK_X) {
                 debug = !debug;
             }
+            if (e.getKeyCode() == KeyEvent.VK_H) {
+                hud.toggle(handler.getUpdater());
+            }
 
             if (e.getKeyCode() == KeyEvent.VK_W) {
                 handler.display.offsetVel.y += handler.display.offsetAccel * 100 * 1 / handler.display.scale;